@@ -1,9 +1,17 @@
 package com.stemcraft;
 
+import com.stemcraft.chunkgen.TemplateChunkGenerator;
+import com.stemcraft.chunkgen.TemplateExporter;
 import com.stemcraft.chunkgen.VoidChunkGenerator;
 import com.stemcraft.command.Hub;
 import com.stemcraft.listener.*;
 import com.stemcraft.util.*;
+import com.stemcraft.world.GeneratorRegistry;
+import com.stemcraft.world.IdleWorldMonitor;
+import com.stemcraft.world.RegionScanner;
+import com.stemcraft.world.WorldCopier;
+import com.stemcraft.world.WorldDeleter;
+import com.stemcraft.world.WorldRegistry;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -114,6 +122,11 @@ public class STEMCraftLib extends JavaPlugin {
         instance = this;
 
         saveDefaultConfig();
+        WorldRegistry.init();
+        WorldDeleter.init();
+        GeneratorRegistry.init();
+        GeneratorRegistry.register("void", this, (worldName, id) -> VoidChunkGenerator.create(id));
+        GeneratorRegistry.register("template", this, (worldName, id) -> TemplateChunkGenerator.create(id));
 
         File configFile = new File(instance.getDataFolder(), "config.yml");
         if (configFile.exists()) {
@@ -142,8 +155,7 @@ public class STEMCraftLib extends JavaPlugin {
                     if(SCWorld.exists(worldName)) {
                         boolean load = worldsSection.getBoolean(worldName + ".load", false);
                         if (load) {
-                            SCWorld.load(worldName);
-                            log("Loaded world {name}", "name", worldName);
+                            SCWorld.queueStartupLoad(worldName);
                         }
                     } else {
                         warning("Configuration contains the world {name} however it does not exist", "name", worldName);
@@ -181,9 +193,15 @@ public class STEMCraftLib extends JavaPlugin {
         extractFile("prices.yml");
         SCItem.loadPricesFromConfig(new File(instance.getDataFolder(), "prices.yml"));
 
+        // registered first so the worlds loaded by SCWorld.init are tracked
+        getServer().getPluginManager().registerEvents(new WorldLoadListener(), this);
+        getServer().getPluginManager().registerEvents(new WorldUnloadListener(), this);
+
         SCWorld.init();
         SCPlayer.init();
         SCHologram.init();
+        SCChunkQueue.init();
+        SCChunkQueue.register(SCHologram::updateChunks);
 
         SCTabCompletion.register("player", () -> Bukkit.getServer().getOnlinePlayers().stream()
                 .map(Player::getName)
@@ -195,21 +213,20 @@ public class STEMCraftLib extends JavaPlugin {
                 .toList()
         );
 
-        SCTabCompletion.register("offline-world", () ->
-                SCWorld.list().stream()
-                        .filter(worldName -> Bukkit.getWorlds().stream()
-                                .noneMatch(world -> world.getName().equals(worldName)))
-                        .toList()
-        );
+        SCTabCompletion.register("offline-world", SCWorld::listUnloaded);
 
         SCTabCompletion.register("gamemode", () -> List.of("survival", "creative", "adventure", "spectator"));
 
 
         getServer().getPluginManager().registerEvents(new PlayerDropItemListener(), this);
         getServer().getPluginManager().registerEvents(new ChunkLoadListener(), this);
+        getServer().getPluginManager().registerEvents(new ChunkUnloadListener(), this);
+        getServer().getPluginManager().registerEvents(new EntitiesLoadListener(), this);
         getServer().getPluginManager().registerEvents(new PlayerJoinListener(), this);
+        getServer().getPluginManager().registerEvents(new PlayerQuitListener(), this);
         getServer().getPluginManager().registerEvents(new PlayerTeleportListener(), this);
         getServer().getPluginManager().registerEvents(new PlayerChangedWorldListener(), this);
+        getServer().getPluginManager().registerEvents(new PluginListener(), this);
 
         registerCommand(new Hub());
 
@@ -222,7 +239,10 @@ public class STEMCraftLib extends JavaPlugin {
         tabCompletions.add(new String[]{"teleport", "{world}", "{player}"});
         tabCompletions.add(new String[]{"spawn", "{world}", "{player}"});
         tabCompletions.add(new String[]{"setspawn", "{world}", "{player}"});
-        tabCompletions.add(new String[]{"copy", "{world}"});
+        tabCompletions.add(new String[]{"copy", "{world}|{offline-world}"});
+        tabCompletions.add(new String[]{"exporttemplate", "{world}"});
+        tabCompletions.add(new String[]{"stats", "{world}|{offline-world}"});
+        tabCompletions.add(new String[]{"verify", "{world}|{offline-world}"});
         tabCompletions.add(new String[]{"autosave", "{world}|enabled|disabled", "{world}"});
         tabCompletions.add(new String[]{"save", "{world}"});
         tabCompletions.add(new String[]{"bedrespawn", "{world}|enabled|disabled", "{world}"});
@@ -236,13 +256,24 @@ public class STEMCraftLib extends JavaPlugin {
 
     @Override
     public void onDisable() {
-        SCWorld.saveConfig();
-        SCHologram.saveAll(true);
+        IdleWorldMonitor.shutdown();
+        SCWorld.shutdown();
+        SCChunkQueue.shutdown();
+        SCHologram.shutdown();
+        WorldRegistry.shutdown();
+        WorldCopier.shutdown();
+        WorldDeleter.shutdown();
+        TemplateExporter.shutdown();
+        RegionScanner.shutdown();
     }
 
     @Override
     public ChunkGenerator getDefaultWorldGenerator(@NotNull String worldName, String id) {
-        return new VoidChunkGenerator();
+        if (id != null && id.startsWith("template/")) {
+            return TemplateChunkGenerator.create(id.substring("template/".length()));
+        }
+
+        return VoidChunkGenerator.create(id);
     }
 
     public static boolean supports(String attribute) {
@@ -0,0 +1,151 @@
+package com.stemcraft.chunkgen;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.generator.BiomeProvider;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.generator.WorldInfo;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A chunk generator that copies the blocks of each chunk from a chunk template file, either once
+ * around the template origin or repeated in every direction. All vanilla generation stages are
+ * skipped.
+ */
+public class TemplateChunkGenerator extends ChunkGenerator {
+    private final TemplateFile template;
+    private final BiomeProvider biomes;
+
+    /**
+     * A biome provider returning the same biome everywhere
+     */
+    private static class SingleBiomeProvider extends BiomeProvider {
+        private final Biome biome;
+        private final List<Biome> biomes;
+
+        private SingleBiomeProvider(Biome biome) {
+            this.biome = biome;
+            this.biomes = List.of(biome);
+        }
+
+        @NotNull
+        @Override
+        public Biome getBiome(@NotNull WorldInfo worldInfo, int x, int y, int z) {
+            return biome;
+        }
+
+        @NotNull
+        @Override
+        public List<Biome> getBiomes(@NotNull WorldInfo worldInfo) {
+            return biomes;
+        }
+    }
+
+    /**
+     * Create a generator for a chunk template
+     *
+     * @param template The chunk template
+     */
+    public TemplateChunkGenerator(TemplateFile template) {
+        this.template = template;
+        this.biomes = new SingleBiomeProvider(Biome.PLAINS);
+    }
+
+    /**
+     * Create a generator from a generator id, which is the template name
+     *
+     * @param id The template name
+     * @return The generator
+     * @throws IllegalArgumentException If the template does not exist or cannot be read
+     */
+    public static TemplateChunkGenerator create(String id) {
+        return new TemplateChunkGenerator(TemplateFile.get(id));
+    }
+
+    @Override
+    public void generateNoise(@NotNull WorldInfo worldInfo, @NotNull Random random, int chunkX, int chunkZ, @NotNull ChunkData chunkData) {
+        int offset = template.chunkOffset(chunkX, chunkZ);
+        if (offset < 0) {
+            return;
+        }
+
+        BlockData[] palette = template.getPalette();
+        int minY = Math.max(template.getMinY(), chunkData.getMinHeight());
+        int maxY = Math.min(template.getMinY() + template.getHeight(), chunkData.getMaxHeight());
+
+        for (int y = minY; y < maxY; y++) {
+            int templateY = y - template.getMinY();
+            for (int z = 0; z < 16; z++) {
+                // set runs of the same block along X together, skipping air
+                int x = 0;
+                while (x < 16) {
+                    int index = template.getIndex(offset, x, templateY, z);
+                    int end = x + 1;
+                    while (end < 16 && template.getIndex(offset, end, templateY, z) == index) {
+                        end++;
+                    }
+
+                    if (index != 0 && index < palette.length) {
+                        if (end - x == 1) {
+                            chunkData.setBlock(x, y, z, palette[index]);
+                        } else {
+                            chunkData.setRegion(x, y, z, end, y + 1, z + 1, palette[index]);
+                        }
+                    }
+
+                    x = end;
+                }
+            }
+        }
+    }
+
+    @Override
+    public BiomeProvider getDefaultBiomeProvider(@NotNull WorldInfo worldInfo) {
+        return biomes;
+    }
+
+    @Override
+    public Location getFixedSpawnLocation(@NotNull World world, @NotNull Random random) {
+        return new Location(world, template.getSpawnX() + 0.5, template.getSpawnY(), template.getSpawnZ() + 0.5);
+    }
+
+    @Override
+    public boolean isParallelCapable() {
+        return true;
+    }
+
+    @Override
+    public boolean shouldGenerateNoise() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateSurface() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateCaves() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateDecorations() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateMobs() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateStructures() {
+        return false;
+    }
+}
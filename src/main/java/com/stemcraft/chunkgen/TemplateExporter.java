@@ -0,0 +1,177 @@
+package com.stemcraft.chunkgen;
+
+import com.stemcraft.util.SCFile;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exports the chunks around the spawn of a world to a chunk template file. Chunks are loaded with the
+ * asynchronous chunk API and captured as snapshots, then encoded and written off the main thread.
+ */
+public class TemplateExporter {
+    private static final int MAX_PALETTE = 65535;
+    private static ExecutorService executor = null;
+
+    /**
+     * Export the chunks within a square radius of the spawn chunk of a world. Must be called on the
+     * main thread.
+     *
+     * @param world The world to export
+     * @param name The template name
+     * @param radius The radius in chunks
+     * @param repeat If the template repeats in every direction when generated
+     * @return A future completing with the size of the template file in bytes
+     */
+    public static CompletableFuture<Long> export(World world, String name, int radius, boolean repeat) {
+        Location spawn = world.getSpawnLocation();
+        int centerX = spawn.getBlockX() >> 4;
+        int centerZ = spawn.getBlockZ() >> 4;
+        int size = radius * 2 + 1;
+        int[] origin = {centerX - radius, centerZ - radius};
+        int[] spawnBlock = {spawn.getBlockX(), spawn.getBlockY(), spawn.getBlockZ()};
+        int minHeight = world.getMinHeight();
+        int maxHeight = world.getMaxHeight();
+
+        List<CompletableFuture<ChunkSnapshot>> snapshots = new ArrayList<>();
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                snapshots.add(world.getChunkAtAsync(origin[0] + x, origin[1] + z).thenApply(Chunk::getChunkSnapshot));
+            }
+        }
+
+        return CompletableFuture.allOf(snapshots.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> {
+                    List<ChunkSnapshot> chunks = snapshots.stream().map(CompletableFuture::join).toList();
+                    byte[] data = encode(chunks, repeat, origin, size, minHeight, maxHeight, spawnBlock);
+                    try {
+                        SCFile.writeAtomically(TemplateFile.getPath(name), data);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+
+                    TemplateFile.unload(name);
+                    return (long) data.length;
+                }, getExecutor());
+    }
+
+    /**
+     * Stop the export thread
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Encode chunk snapshots as a template file
+     *
+     * @param chunks The chunks in Z then X order
+     * @param repeat If the template repeats
+     * @param origin The origin chunk X and Z
+     * @param size The size in chunks along each side
+     * @param minHeight The world min height
+     * @param maxHeight The world max height
+     * @param spawn The spawn block X, Y and Z
+     * @return The file contents
+     */
+    private static byte[] encode(List<ChunkSnapshot> chunks, boolean repeat, int[] origin, int size,
+                                 int minHeight, int maxHeight, int[] spawn) {
+        Map<BlockData, Integer> paletteIds = new HashMap<>();
+        List<byte[]> palette = new ArrayList<>();
+        palette.add("minecraft:air".getBytes(StandardCharsets.UTF_8));
+
+        // find the palette and the height range holding blocks
+        int lowest = maxHeight;
+        int highest = minHeight - 1;
+        for (ChunkSnapshot chunk : chunks) {
+            for (int y = minHeight; y < maxHeight; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        BlockData block = chunk.getBlockData(x, y, z);
+                        if (block.getMaterial().isAir()) {
+                            continue;
+                        }
+
+                        lowest = Math.min(lowest, y);
+                        highest = Math.max(highest, y);
+                        if (!paletteIds.containsKey(block)) {
+                            if (palette.size() >= MAX_PALETTE) {
+                                throw new IllegalStateException("The area has more than " + MAX_PALETTE + " different blocks");
+                            }
+
+                            paletteIds.put(block, palette.size());
+                            palette.add(block.getAsString().getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+            }
+        }
+
+        if (highest < lowest) {
+            lowest = spawn[1];
+            highest = spawn[1];
+        }
+
+        int height = highest - lowest + 1;
+        int indexSize = palette.size() <= 256 ? 1 : 2;
+        int paletteBytes = palette.stream().mapToInt(entry -> entry.length + 2).sum();
+        int headerBytes = 4 + 2 + 1 + 1 + 4 * 10;
+        long total = headerBytes + paletteBytes + (long) chunks.size() * 256 * height * indexSize;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The template would be too large");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) total);
+        TemplateFile.writeHeader(buffer, repeat, indexSize, origin, new int[]{size, size}, lowest, height, spawn,
+                palette.toArray(new byte[0][]));
+
+        for (ChunkSnapshot chunk : chunks) {
+            for (int y = lowest; y <= highest; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        BlockData block = chunk.getBlockData(x, y, z);
+                        int index = block.getMaterial().isAir() ? 0 : paletteIds.get(block);
+                        if (indexSize == 1) {
+                            buffer.put((byte) index);
+                        } else {
+                            buffer.putShort((short) index);
+                        }
+                    }
+                }
+            }
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Return the export thread, starting it if needed
+     *
+     * @return The executor
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "STEMCraftLib Template Export");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+}
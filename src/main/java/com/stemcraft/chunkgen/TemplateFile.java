@@ -0,0 +1,239 @@
+package com.stemcraft.chunkgen;
+
+import com.stemcraft.STEMCraftLib;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+/**
+ * A chunk template file. The file holds a palette of block states followed by the palette index of
+ * every block in a rectangle of chunks, and is memory mapped and shared by every world using it.
+ *
+ * <p>Layout (big endian): magic, version, flags, index size (1 or 2 bytes), origin chunk X and Z,
+ * size in chunks X and Z, min Y, height, spawn X, Y and Z, palette size, the palette as length
+ * prefixed block data strings, then each chunk in Z then X order with its blocks in Y, Z, X order.
+ * Palette index 0 is always air.</p>
+ */
+public class TemplateFile {
+    public static final int MAGIC = 0x53435450; // SCTP
+    public static final short VERSION = 1;
+    public static final int FLAG_REPEAT = 1;
+    public static final String EXTENSION = ".sctemplate";
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final Map<Path, TemplateFile> loaded = new ConcurrentHashMap<>();
+
+    private final MappedByteBuffer data;
+    private final int dataOffset;
+    private final int indexSize;
+    @Getter
+    private final boolean repeat;
+    @Getter
+    private final int originX;
+    @Getter
+    private final int originZ;
+    @Getter
+    private final int sizeX;
+    @Getter
+    private final int sizeZ;
+    @Getter
+    private final int minY;
+    @Getter
+    private final int height;
+    @Getter
+    private final int spawnX;
+    @Getter
+    private final int spawnY;
+    @Getter
+    private final int spawnZ;
+    @Getter
+    private final BlockData[] palette;
+
+    private TemplateFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (data.getInt() != MAGIC || data.getShort() != VERSION) {
+            throw new IOException("Not a chunk template file: " + path);
+        }
+
+        repeat = (data.get() & FLAG_REPEAT) != 0;
+        indexSize = data.get();
+        originX = data.getInt();
+        originZ = data.getInt();
+        sizeX = data.getInt();
+        sizeZ = data.getInt();
+        minY = data.getInt();
+        height = data.getInt();
+        spawnX = data.getInt();
+        spawnY = data.getInt();
+        spawnZ = data.getInt();
+
+        palette = new BlockData[data.getInt()];
+        for (int i = 0; i < palette.length; i++) {
+            byte[] text = new byte[data.getShort() & 0xFFFF];
+            data.get(text);
+
+            try {
+                palette[i] = Bukkit.createBlockData(new String(text, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                STEMCraftLib.log(Level.WARNING, "Unknown block " + new String(text, StandardCharsets.UTF_8) + " in chunk template " + path + ", using air");
+                palette[i] = Material.AIR.createBlockData();
+            }
+        }
+
+        dataOffset = data.position();
+        long expected = dataOffset + (long) sizeX * sizeZ * chunkBytes();
+        if ((indexSize != 1 && indexSize != 2) || sizeX <= 0 || sizeZ <= 0 || height <= 0 || data.capacity() < expected) {
+            throw new IOException("Chunk template file is incomplete: " + path);
+        }
+    }
+
+    /**
+     * Return a loaded template, mapping the file if it is not already loaded
+     *
+     * @param name The template name
+     * @return The template
+     * @throws IllegalArgumentException If the template does not exist or cannot be read
+     */
+    public static TemplateFile get(String name) {
+        Path path = getPath(name);
+        return loaded.computeIfAbsent(path, key -> {
+            try {
+                return new TemplateFile(key);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException("Could not load chunk template " + name + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Forget a loaded template, so it is read again when next used
+     *
+     * @param name The template name
+     */
+    public static void unload(String name) {
+        loaded.remove(getPath(name));
+    }
+
+    /**
+     * Return the path of a template file
+     *
+     * @param name The template name
+     * @return The template path
+     * @throws IllegalArgumentException If the name is not valid
+     */
+    public static Path getPath(String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid chunk template name: " + name);
+        }
+
+        return new File(STEMCraftLib.getInstance().getDataFolder(), "templates").toPath().resolve(name + EXTENSION);
+    }
+
+    /**
+     * Does a template file exist
+     *
+     * @param name The template name
+     * @return If the template exists
+     */
+    public static boolean exists(String name) {
+        try {
+            return Files.isRegularFile(getPath(name));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return the byte offset of a template chunk, or -1 if the world chunk is outside the template
+     *
+     * @param chunkX The world chunk X
+     * @param chunkZ The world chunk Z
+     * @return The byte offset of the chunk blocks
+     */
+    public int chunkOffset(int chunkX, int chunkZ) {
+        int x = chunkX - originX;
+        int z = chunkZ - originZ;
+
+        if (repeat) {
+            x = Math.floorMod(x, sizeX);
+            z = Math.floorMod(z, sizeZ);
+        } else if (x < 0 || z < 0 || x >= sizeX || z >= sizeZ) {
+            return -1;
+        }
+
+        return dataOffset + (z * sizeX + x) * chunkBytes();
+    }
+
+    /**
+     * Return the palette index of a block
+     *
+     * @param chunkOffset The byte offset of the chunk
+     * @param x The block X within the chunk
+     * @param y The block Y relative to the template min Y
+     * @param z The block Z within the chunk
+     * @return The palette index
+     */
+    public int getIndex(int chunkOffset, int x, int y, int z) {
+        int block = (y << 8) | (z << 4) | x;
+        return indexSize == 1
+                ? data.get(chunkOffset + block) & 0xFF
+                : data.getShort(chunkOffset + block * 2) & 0xFFFF;
+    }
+
+    /**
+     * Return the bytes used by each chunk
+     *
+     * @return The chunk size in bytes
+     */
+    private int chunkBytes() {
+        return 256 * height * indexSize;
+    }
+
+    /**
+     * Write the header and palette of a template file
+     *
+     * @param buffer The buffer to write to
+     * @param repeat If the template repeats in every direction
+     * @param indexSize The bytes per palette index
+     * @param origin The origin chunk X and Z
+     * @param size The size in chunks X and Z
+     * @param minY The min Y
+     * @param height The height
+     * @param spawn The spawn X, Y and Z
+     * @param palette The block data strings
+     */
+    static void writeHeader(ByteBuffer buffer, boolean repeat, int indexSize, int[] origin, int[] size,
+                            int minY, int height, int[] spawn, byte[][] palette) {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.put((byte) (repeat ? FLAG_REPEAT : 0));
+        buffer.put((byte) indexSize);
+        buffer.putInt(origin[0]).putInt(origin[1]);
+        buffer.putInt(size[0]).putInt(size[1]);
+        buffer.putInt(minY).putInt(height);
+        buffer.putInt(spawn[0]).putInt(spawn[1]).putInt(spawn[2]);
+        buffer.putInt(palette.length);
+        for (byte[] entry : palette) {
+            buffer.putShort((short) entry.length);
+            buffer.put(entry);
+        }
+    }
+}
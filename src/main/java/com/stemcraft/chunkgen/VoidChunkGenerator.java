@@ -1,36 +1,154 @@
 package com.stemcraft.chunkgen;
 
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.generator.BiomeProvider;
 import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.generator.WorldInfo;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
- * A chunk generator that generates a void (empty) world.
+ * A chunk generator that generates a void (empty) world. All vanilla generation stages are skipped,
+ * players spawn at a fixed location, and a platform can be placed under the spawn.
  */
 public class VoidChunkGenerator extends ChunkGenerator {
+    private static final BiomeProvider VOID_BIOMES = new VoidBiomeProvider();
+    private static final int SPAWN_Y = 64;
+
+    private final BlockData platform;
+    private final int platformRadius;
+    private final int platformY;
+
+    /**
+     * A biome provider returning the void biome everywhere
+     */
+    private static class VoidBiomeProvider extends BiomeProvider {
+        private static final List<Biome> BIOMES = List.of(Biome.THE_VOID);
+
+        @NotNull
+        @Override
+        public Biome getBiome(@NotNull WorldInfo worldInfo, int x, int y, int z) {
+            return Biome.THE_VOID;
+        }
+
+        @NotNull
+        @Override
+        public List<Biome> getBiomes(@NotNull WorldInfo worldInfo) {
+            return BIOMES;
+        }
+    }
+
+    /**
+     * Create a void generator without a platform
+     */
+    public VoidChunkGenerator() {
+        this(null, 0, SPAWN_Y - 1);
+    }
+
+    /**
+     * Create a void generator with a square platform centered under the spawn
+     *
+     * @param platform The platform block, or NULL for no platform
+     * @param radius The platform radius in blocks
+     * @param y The platform height
+     */
+    public VoidChunkGenerator(BlockData platform, int radius, int y) {
+        this.platform = platform;
+        this.platformRadius = Math.max(0, radius);
+        this.platformY = y;
+    }
+
+    /**
+     * Create a void generator from a generator id. The id "platform" adds the platform from the
+     * void-generator settings in the config.
+     *
+     * @param id The generator id, or NULL
+     * @return The generator
+     */
+    public static VoidChunkGenerator create(String id) {
+        if (!"platform".equalsIgnoreCase(id)) {
+            return new VoidChunkGenerator();
+        }
+
+        FileConfiguration config = STEMCraftLib.getInstance().getConfig();
+        Material material = Material.matchMaterial(config.getString("void-generator.platform.material", "STONE"));
+        if (material == null || !material.isBlock()) {
+            material = Material.STONE;
+        }
+
+        return new VoidChunkGenerator(material.createBlockData(),
+                config.getInt("void-generator.platform.radius", 2),
+                config.getInt("void-generator.platform.y", SPAWN_Y - 1));
+    }
+
+    @Override
+    public void generateSurface(@NotNull WorldInfo worldInfo, @NotNull Random random, int chunkX, int chunkZ, @NotNull ChunkData chunkData) {
+        if (platform == null) {
+            return;
+        }
+
+        // only the chunks overlapping the platform have blocks set
+        int minX = Math.max(-platformRadius, chunkX << 4);
+        int maxX = Math.min(platformRadius, (chunkX << 4) + 15);
+        int minZ = Math.max(-platformRadius, chunkZ << 4);
+        int maxZ = Math.min(platformRadius, (chunkZ << 4) + 15);
+        if (minX > maxX || minZ > maxZ) {
+            return;
+        }
+
+        chunkData.setRegion(minX & 15, platformY, minZ & 15, (maxX & 15) + 1, platformY + 1, (maxZ & 15) + 1, platform);
+    }
 
     @Override
     public BiomeProvider getDefaultBiomeProvider(@NotNull WorldInfo worldInfo) {
-        return new BiomeProvider() {
-            @NotNull
-            @Override
-            public Biome getBiome(@NotNull WorldInfo worldInfo, int x, int y, int z) {
-                return Biome.THE_VOID;
-            }
-
-            @NotNull
-            @Override
-            public List<Biome> getBiomes(@NotNull WorldInfo worldInfo) {
-                List<Biome> list = new ArrayList<>();
-
-                list.add(Biome.THE_VOID);
-                return list;
-            }
-        };
+        return VOID_BIOMES;
+    }
+
+    @Override
+    public Location getFixedSpawnLocation(@NotNull World world, @NotNull Random random) {
+        return new Location(world, 0.5, platform == null ? SPAWN_Y : platformY + 1, 0.5);
+    }
+
+    @Override
+    public boolean isParallelCapable() {
+        return true;
+    }
+
+    @Override
+    public boolean shouldGenerateNoise() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateSurface() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateCaves() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateDecorations() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateMobs() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldGenerateStructures() {
+        return false;
     }
 }
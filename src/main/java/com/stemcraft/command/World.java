@@ -3,11 +3,16 @@ package com.stemcraft.command;
 // TODO Add in permission checks
 
 import com.stemcraft.STEMCraftCommand;
+import com.stemcraft.STEMCraftLib;
+import com.stemcraft.chunkgen.TemplateExporter;
+import com.stemcraft.chunkgen.TemplateFile;
 import com.stemcraft.exception.InvalidWorldGeneratorException;
 import com.stemcraft.exception.MainWorldDeletionException;
 import com.stemcraft.util.SCChatMenu;
 import com.stemcraft.util.SCPlayer;
 import com.stemcraft.util.SCWorld;
+import com.stemcraft.world.GeneratorRegistry;
+import com.stemcraft.world.RegionScanner;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
@@ -16,13 +21,12 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.logging.Level;
 
 public class World extends STEMCraftCommand {
     @Override
@@ -80,6 +84,15 @@ public class World extends STEMCraftCommand {
             case "listgenerators":
                 executeListGenerators(sender, args);
                 break;
+            case "exporttemplate":
+                executeExportTemplate(sender, args);
+                break;
+            case "stats":
+                executeStats(sender, args, false);
+                break;
+            case "verify":
+                executeStats(sender, args, true);
+                break;
             default:
                 messageUsage(sender);
                 break;
@@ -99,6 +112,7 @@ public class World extends STEMCraftCommand {
     public void executeCreate(CommandSender sender, List<String> args) {
         if (args.size() < 2) {
             message(sender, "Usage: /world create <name>:[generator]:[arguments] [seed]");
+            message(sender, "Arguments are passed to plugin generators as their id, such as <name>:template:<template>");
             return;
         }
 
@@ -122,6 +136,17 @@ public class World extends STEMCraftCommand {
             return;
         }
 
+        // plugin generators have no settings, so the arguments select the generator id
+        if (generator != null && !settings.isEmpty() && !generator.contains("/") && GeneratorRegistry.exists(generator)) {
+            generator = generator + "/" + settings;
+            settings = "";
+        }
+
+        if (generator != null && !GeneratorRegistry.exists(generator)) {
+            error(sender, "Failed to create world {name} as the generator {generator} is not installed", "name", worldName, "generator", generator);
+            return;
+        }
+
         try {
             org.bukkit.World world = SCWorld.create(worldName, generator, settings, seed);
             if (world != null) {
@@ -157,6 +182,10 @@ public class World extends STEMCraftCommand {
             SCWorld.delete(worldName, status -> {
                 if (Objects.requireNonNull(status) == SCWorld.WorldStatus.DELETED_WORLD) {
                     message(sender, "World {name} has been deleted successfully.", "name", worldName);
+                } else if (status == SCWorld.WorldStatus.DELETE_FAILED) {
+                    error(sender, "Failed to delete world {name}, see the server log for details.", "name", worldName);
+                } else if (status == SCWorld.WorldStatus.UNLOAD_FAILED) {
+                    error(sender, "Failed to unload world {name} before deleting it.", "name", worldName);
                 } else {
                     message(sender, "World {name} is being processed.", "name", worldName);
                 }
@@ -185,12 +214,14 @@ public class World extends STEMCraftCommand {
             return;
         }
 
-        org.bukkit.World world = SCWorld.load(worldName);
-        if (world != null) {
-            message(sender, "World {name} has been loaded successfully.", "name", worldName);
-        } else {
-            error(sender, "Failed to load world {name}.", "name", worldName);
-        }
+        message(sender, "Loading world {name}.", "name", worldName);
+        SCWorld.loadAsync(worldName).thenAccept(world -> {
+            if (world != null) {
+                message(sender, "World {name} has been loaded successfully.", "name", worldName);
+            } else {
+                error(sender, "Failed to load world {name}.", "name", worldName);
+            }
+        });
     }
 
     public void executeUnload(CommandSender sender, List<String> args) {
@@ -209,6 +240,8 @@ public class World extends STEMCraftCommand {
         SCWorld.unload(world, false, status -> {
             if (Objects.requireNonNull(status) == SCWorld.WorldStatus.UNLOADED_WORLD) {
                 message(sender, "World {name} has been unloaded successfully.", "name", worldName);
+            } else if (status == SCWorld.WorldStatus.UNLOAD_FAILED) {
+                error(sender, "Failed to unload world {name}.", "name", worldName);
             } else {
                 message(sender, "World {name} is being processed.", "name", worldName);
             }
@@ -261,17 +294,6 @@ public class World extends STEMCraftCommand {
             return;
         }
 
-        if (!SCWorld.isLoaded(worldName)) {
-            error(sender, "The world {name} is not loaded.", "name", worldName);
-            return;
-        }
-
-        org.bukkit.World world = Bukkit.getWorld(worldName);
-        if (world == null) {
-            error(sender, "Failed to find world {name}.", "name", worldName);
-            return;
-        }
-
         Player targetPlayer;
 
         if (sender instanceof Player player) {
@@ -288,9 +310,17 @@ public class World extends STEMCraftCommand {
             }
         }
 
-        Location spawn = SCWorld.getLastLocation(world, targetPlayer);
-        SCPlayer.teleport(targetPlayer, spawn);
-        message(sender, "Teleported {player} to spawn of world {name}.", "player", targetPlayer.getName(), "name", worldName);
+        if (!SCWorld.isLoaded(worldName)) {
+            message(sender, "Loading world {name}.", "name", worldName);
+        }
+
+        SCPlayer.teleport(targetPlayer, worldName).thenAccept(teleported -> {
+            if (teleported) {
+                message(sender, "Teleported {player} to spawn of world {name}.", "player", targetPlayer.getName(), "name", worldName);
+            } else {
+                error(sender, "Failed to teleport {player} to world {name}.", "player", targetPlayer.getName(), "name", worldName);
+            }
+        });
     }
 
     /**
@@ -425,8 +455,25 @@ public class World extends STEMCraftCommand {
             return;
         }
 
-        SCWorld.duplicate(sourceWorldName, targetWorldName);
-        message(sender, "World {source} has been duplicated to {target}.", "source", sourceWorldName, "target", targetWorldName);
+        int[] reported = {0};
+        SCWorld.duplicate(sourceWorldName, targetWorldName, status -> {
+            if (status == SCWorld.WorldStatus.COPYING_WORLD) {
+                message(sender, "Copying world {source} to {target}.", "source", sourceWorldName, "target", targetWorldName);
+            }
+        }, (bytesDone, bytesTotal) -> {
+            // report each quarter of the copy
+            int quarter = bytesTotal == 0 ? 4 : (int) (bytesDone * 4 / bytesTotal);
+            if (quarter > reported[0] && quarter < 4) {
+                reported[0] = quarter;
+                message(sender, "Copying world {target}, {percent}% complete.", "target", targetWorldName, "percent", String.valueOf(quarter * 25));
+            }
+        }).thenAccept(world -> {
+            if (world != null) {
+                message(sender, "World {source} has been duplicated to {target}.", "source", sourceWorldName, "target", targetWorldName);
+            } else {
+                error(sender, "Failed to duplicate world {source} to {target}.", "source", sourceWorldName, "target", targetWorldName);
+            }
+        });
     }
 
     /**
@@ -539,7 +586,7 @@ public class World extends STEMCraftCommand {
             return;
         }
 
-        message(sender, "Saving the world {name}.", "name", worldName);
+        message(sender, "Saving the world {name}.", "name", world.getName());
         world.save();
     }
 
@@ -693,6 +740,153 @@ public class World extends STEMCraftCommand {
         message(sender, "Game mode for world {name} has been set to {mode}.", "name", worldName, "mode", gameMode);
     }
 
+    /**
+     * Export the chunks around the spawn of a world as a chunk template
+     * @param sender The command sender
+     * @param args The command arguments
+     */
+    public void executeExportTemplate(CommandSender sender, List<String> args) {
+        if (args.size() < 4) {
+            message(sender, "Usage: /world exporttemplate <world> <template> <radius> [repeat]");
+            return;
+        }
+
+        String worldName = args.get(1);
+        org.bukkit.World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            error(sender, "The world {name} is not loaded.", "name", worldName);
+            return;
+        }
+
+        String templateName = args.get(2);
+        try {
+            TemplateFile.getPath(templateName);
+        } catch (IllegalArgumentException e) {
+            error(sender, "The template name {template} can only contain letters, numbers, - and _.", "template", templateName);
+            return;
+        }
+
+        int radius;
+        try {
+            radius = Integer.parseInt(args.get(3));
+        } catch (NumberFormatException e) {
+            error(sender, "The radius must be a number.");
+            return;
+        }
+
+        if (radius < 0 || radius > 16) {
+            error(sender, "The radius must be between 0 and 16 chunks.");
+            return;
+        }
+
+        boolean repeat = args.size() > 4 && args.get(4).equalsIgnoreCase("repeat");
+        message(sender, "Exporting world {name} to template {template}...", "name", worldName, "template", templateName);
+        TemplateExporter.export(world, templateName, radius, repeat).whenComplete((bytes, throwable) ->
+                Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), () -> {
+                    if (throwable != null) {
+                        STEMCraftLib.log(Level.SEVERE, "Failed to export world " + worldName + " to a template", throwable);
+                        error(sender, "Failed to export world {name} to template {template}.", "name", worldName, "template", templateName);
+                    } else {
+                        message(sender, "Exported world {name} to template {template} ({kb} KB). Create worlds from it with /world create <name>:template:{template}",
+                                "name", worldName, "template", templateName, "kb", String.valueOf(bytes / 1024));
+                    }
+                }));
+    }
+
+    /**
+     * Report the region file statistics of a world, or check its region files for bad chunks
+     * @param sender The command sender
+     * @param args The command arguments
+     * @param verify If the bad chunks should be listed
+     */
+    public void executeStats(CommandSender sender, List<String> args, boolean verify) {
+        if (args.size() < 2) {
+            message(sender, "Usage: /world " + (verify ? "verify" : "stats") + " <world>");
+            return;
+        }
+
+        String worldName = args.get(1);
+        if (!SCWorld.exists(worldName)) {
+            error(sender, "The world {name} does not exist.", "name", worldName);
+            return;
+        }
+
+        message(sender, "Scanning the region files of world {name}...", "name", worldName);
+        SCWorld.scanRegions(worldName).whenComplete((result, throwable) ->
+                Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), () -> {
+                    if (throwable != null || result == null) {
+                        if (throwable != null) {
+                            STEMCraftLib.log(Level.SEVERE, "Failed to scan the region files of world " + worldName, throwable);
+                        }
+
+                        error(sender, "Failed to scan the region files of world {name}.", "name", worldName);
+                        return;
+                    }
+
+                    if (verify) {
+                        messageVerify(sender, worldName, result);
+                    } else {
+                        messageStats(sender, worldName, result);
+                    }
+                }));
+    }
+
+    /**
+     * Send the region file statistics of a world
+     * @param sender The command sender
+     * @param worldName The world name
+     * @param result The scan result
+     */
+    private void messageStats(CommandSender sender, String worldName, RegionScanner.ScanResult result) {
+        message(sender, "World {name}: {files} region files, {mb} MB, scanned in {ms}ms", "name", worldName,
+                "files", String.valueOf(result.regionFiles()),
+                "mb", String.format("%.1f", result.regionBytes() / (1024.0 * 1024.0)),
+                "ms", String.valueOf(result.elapsedMillis()));
+        message(sender, "Chunks: {chunks}, {mb} MB of chunk data, {kb} KB average", "chunks", String.valueOf(result.chunks()),
+                "mb", String.format("%.1f", result.chunkBytes() / (1024.0 * 1024.0)),
+                "kb", String.format("%.1f", result.chunks() == 0 ? 0 : result.chunkBytes() / 1024.0 / result.chunks()));
+
+        List<String> compression = new ArrayList<>();
+        result.compression().forEach((type, count) -> compression.add(type + " " + count));
+        message(sender, "Compression: {types}", "types", compression.isEmpty() ? "none" : String.join(", ", compression));
+
+        if (!result.problems().isEmpty()) {
+            error(sender, "{count} bad chunks or region files, run /world verify {name} for details",
+                    "count", String.valueOf(result.problems().size()), "name", worldName);
+        }
+    }
+
+    /**
+     * Send the bad chunks found in the region files of a world, logging all of them to the console
+     * @param sender The command sender
+     * @param worldName The world name
+     * @param result The scan result
+     */
+    private void messageVerify(CommandSender sender, String worldName, RegionScanner.ScanResult result) {
+        List<RegionScanner.Problem> problems = result.problems();
+        if (problems.isEmpty()) {
+            message(sender, "World {name}: {chunks} chunks in {files} region files verified, no problems found", "name", worldName,
+                    "chunks", String.valueOf(result.chunks()), "files", String.valueOf(result.regionFiles()));
+            return;
+        }
+
+        error(sender, "World {name}: {count} problems found in {files} region files", "name", worldName,
+                "count", String.valueOf(problems.size()), "files", String.valueOf(result.regionFiles()));
+
+        for (int i = 0; i < problems.size(); i++) {
+            RegionScanner.Problem problem = problems.get(i);
+            String line = problem.file().getFileName() + " chunk " + problem.chunkX() + "," + problem.chunkZ() + ": " + problem.reason();
+            STEMCraftLib.log(Level.WARNING, "World " + worldName + " " + line);
+            if (i < 10) {
+                error(sender, line);
+            }
+        }
+
+        if (problems.size() > 10) {
+            message(sender, "{count} more problems were logged to the console", "count", String.valueOf(problems.size() - 10));
+        }
+    }
+
     /**
      * List the available world generators
      *
@@ -700,23 +894,7 @@ public class World extends STEMCraftCommand {
      * @param args The command arguments
      */
     public void executeListGenerators(CommandSender sender, List<String> args) {
-        ArrayList<String> generators = new ArrayList<>();
-        for (Plugin plugin : Bukkit.getServer().getPluginManager().getPlugins()) {
-            try {
-                //noinspection deprecation
-                String mainclass = plugin.getDescription().getMain();
-                Class<?> cmain = plugin.getClass();
-                if (!cmain.getName().equals(mainclass)) {
-                    cmain = Class.forName(mainclass);
-                }
-                if (cmain.getMethod("getDefaultWorldGenerator", String.class, String.class).getDeclaringClass() != JavaPlugin.class) {
-                    //noinspection deprecation
-                    generators.add(plugin.getDescription().getName());
-                }
-            } catch (Throwable t) {
-                // empty
-            }
-        }
+        List<GeneratorRegistry.Generator> generators = GeneratorRegistry.list();
 
         String title = "Generators";
         String command = "world listgenerators";
@@ -734,7 +912,8 @@ public class World extends STEMCraftCommand {
                     int end = Math.min(start + count, generators.size()); // Ensure bounds
                     for (int i = start; i < end; i++) {
                         Component component = Component.text((i + 1) + ". ", NamedTextColor.LIGHT_PURPLE)
-                                .append(Component.text(generators.get(i) + " ", NamedTextColor.GOLD));
+                                .append(Component.text(generators.get(i).id() + " ", NamedTextColor.GOLD))
+                                .append(Component.text("(" + generators.get(i).plugin() + ")", NamedTextColor.GRAY));
 
                         list.add(component);
                     }
@@ -7,15 +7,25 @@ public class WorldDeleteEvent extends Event {
 
     private static final HandlerList HANDLERS = new HandlerList();
     private final String worldName;
+    private final long bytesFreed;
 
     public WorldDeleteEvent(String worldName) {
+        this(worldName, 0);
+    }
+
+    public WorldDeleteEvent(String worldName, long bytesFreed) {
         this.worldName = worldName;
+        this.bytesFreed = bytesFreed;
     }
 
     public String getWorldName() {
         return worldName;
     }
 
+    public long getBytesFreed() {
+        return bytesFreed;
+    }
+
     @Override
     public HandlerList getHandlers() {
         return HANDLERS;
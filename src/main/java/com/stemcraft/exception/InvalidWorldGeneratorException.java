@@ -5,4 +5,8 @@ public class InvalidWorldGeneratorException extends STEMCraftException {
     public InvalidWorldGeneratorException(String message) {
         super(message);
     }
+
+    public InvalidWorldGeneratorException(String message, Throwable t) {
+        super(message, t);
+    }
 }
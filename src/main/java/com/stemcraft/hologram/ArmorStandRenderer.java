@@ -0,0 +1,33 @@
+package com.stemcraft.hologram;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.ArmorStand;
+
+import java.util.UUID;
+
+/**
+ * Renders hologram lines as the custom names of invisible armor stands.
+ */
+public class ArmorStandRenderer extends EntityRenderer<ArmorStand> {
+    public ArmorStandRenderer(UUID owner) {
+        super(owner);
+    }
+
+    @Override
+    protected Class<ArmorStand> entityClass() {
+        return ArmorStand.class;
+    }
+
+    @Override
+    protected void configure(ArmorStand entity, Component text) {
+        entity.setVisible(false);
+        entity.setCustomNameVisible(true);
+        entity.customName(text);
+        entity.setGravity(false);
+    }
+
+    @Override
+    protected void setText(ArmorStand entity, Component text) {
+        entity.customName(text);
+    }
+}
@@ -0,0 +1,71 @@
+package com.stemcraft.hologram;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of parsed legacy ampersand strings. Main thread only.
+ */
+public class ComponentCache {
+    private static final int DEFAULT_SIZE = 2048;
+    private static int maxSize = DEFAULT_SIZE;
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private static final Map<String, Component> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Component> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * Return the component for a legacy ampersand string, parsing it if not cached.
+     *
+     * @param text The raw text
+     * @return The parsed component
+     */
+    public static Component get(String text) {
+        Component component = cache.get(text);
+        if (component == null) {
+            misses++;
+            component = LegacyComponentSerializer.legacyAmpersand().deserialize(text);
+            cache.put(text, component);
+        } else {
+            hits++;
+        }
+
+        return component;
+    }
+
+    /**
+     * Set the maximum number of cached components.
+     *
+     * @param size The maximum size
+     */
+    public static void setMaxSize(int size) {
+        maxSize = Math.max(1, size);
+        cache.clear();
+    }
+
+    /**
+     * Return the number of lookups served from the cache.
+     *
+     * @return The cache hits
+     */
+    public static long getHits() {
+        return hits;
+    }
+
+    /**
+     * Return the number of lookups that needed parsing.
+     *
+     * @return The cache misses
+     */
+    public static long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,208 @@
+package com.stemcraft.hologram;
+
+import com.stemcraft.STEMCraftLib;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Base renderer that uses one entity per non-blank line. Only lines whose text or position
+ * has changed since the last render are updated.
+ *
+ * @param <T> The entity type used for each line
+ */
+abstract class EntityRenderer<T extends Entity> implements HologramRenderer {
+    public static final double LINE_SPACING = 0.25;
+    protected final List<Line<T>> lines = new ArrayList<>();
+    protected final UUID owner;
+
+    protected EntityRenderer(UUID owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * A rendered line and the state it was last drawn with
+     */
+    protected static class Line<T extends Entity> {
+        private final T entity;
+        private String text;
+        private double x;
+        private double y;
+        private double z;
+
+        Line(T entity, String text, Location location) {
+            this.entity = entity;
+            this.text = text;
+            this.x = location.getX();
+            this.y = location.getY();
+            this.z = location.getZ();
+        }
+
+        boolean isAt(Location location) {
+            return x == location.getX() && y == location.getY() && z == location.getZ();
+        }
+    }
+
+    /**
+     * The entity class used for each line.
+     *
+     * @return The entity class
+     */
+    protected abstract Class<T> entityClass();
+
+    /**
+     * Set up a new line entity before it is added to the world.
+     *
+     * @param entity The line entity
+     * @param text The line text
+     */
+    protected abstract void configure(T entity, Component text);
+
+    /**
+     * Update the text of an existing line entity.
+     *
+     * @param entity The line entity
+     * @param text The line text
+     */
+    protected abstract void setText(T entity, Component text);
+
+    /**
+     * The vertical offset of the entity from where its text should appear.
+     *
+     * @return The offset in blocks
+     */
+    protected double offsetY() {
+        return 0;
+    }
+
+    @Override
+    public void render(Location location, List<String> text, Collection<Player> viewers) {
+        lines.removeIf(line -> line.entity == null || !line.entity.isValid());
+
+        int count = 0;
+        for (String str : text) {
+            if (!str.isEmpty()) {
+                count++;
+            }
+        }
+
+        // remove unused line entities
+        while (lines.size() > count) {
+            lines.removeLast().entity.remove();
+        }
+
+        Location lineLoc = location.clone().add(0, offsetY(), 0);
+        int index = 0;
+
+        for (String str : text) {
+            if (str.isEmpty()) {
+                lineLoc.subtract(0, (LINE_SPACING / 2), 0);
+                continue;
+            }
+
+            lineLoc.subtract(0, LINE_SPACING, 0);
+
+            if (index < lines.size()) {
+                Line<T> line = lines.get(index);
+                if (!line.isAt(lineLoc)) {
+                    line.entity.teleport(lineLoc);
+                    line.x = lineLoc.getX();
+                    line.y = lineLoc.getY();
+                    line.z = lineLoc.getZ();
+                }
+
+                if (!str.equals(line.text)) {
+                    setText(line.entity, ComponentCache.get(str));
+                    line.text = str;
+                }
+            } else {
+                Component component = ComponentCache.get(str);
+                T entity = lineLoc.getWorld().spawn(lineLoc.clone(), entityClass(), e -> {
+                    configure(e, component);
+                    e.setVisibleByDefault(viewers == null);
+                    HologramTag.tag(e, owner);
+                });
+
+                if (viewers != null) {
+                    for (Player viewer : viewers) {
+                        viewer.showEntity(STEMCraftLib.getInstance(), entity);
+                    }
+                }
+
+                lines.add(new Line<>(entity, str, lineLoc));
+            }
+
+            index++;
+        }
+    }
+
+    @Override
+    public List<Entity> adopt(List<Entity> entities, Collection<Player> viewers) {
+        List<Entity> adopted = new ArrayList<>();
+        if (!lines.isEmpty()) {
+            return adopted;
+        }
+
+        Class<T> entityClass = entityClass();
+        for (Entity entity : entities) {
+            if (entityClass.isInstance(entity) && entity.isValid()) {
+                T line = entityClass.cast(entity);
+                line.setVisibleByDefault(viewers == null);
+                if (viewers != null) {
+                    for (Player viewer : viewers) {
+                        viewer.showEntity(STEMCraftLib.getInstance(), line);
+                    }
+                }
+
+                HologramTag.tag(line, owner);
+
+                // the text is unknown, so it is set on the next render
+                lines.add(new Line<>(line, null, line.getLocation()));
+                adopted.add(entity);
+            }
+        }
+
+        return adopted;
+    }
+
+    @Override
+    public void show(Player player) {
+        for (Line<T> line : lines) {
+            player.showEntity(STEMCraftLib.getInstance(), line.entity);
+        }
+    }
+
+    @Override
+    public void hide(Player player) {
+        for (Line<T> line : lines) {
+            player.hideEntity(STEMCraftLib.getInstance(), line.entity);
+        }
+    }
+
+    @Override
+    public void remove() {
+        lines.forEach(line -> {
+            if (line.entity != null && line.entity.isValid()) {
+                line.entity.remove();
+            }
+        });
+
+        lines.clear();
+    }
+
+    @Override
+    public List<UUID> getEntityIds() {
+        List<UUID> ids = new ArrayList<>(lines.size());
+        for (Line<T> line : lines) {
+            ids.add(line.entity.getUniqueId());
+        }
+
+        return ids;
+    }
+}
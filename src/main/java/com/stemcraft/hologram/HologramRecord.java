@@ -0,0 +1,121 @@
+package com.stemcraft.hologram;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An immutable snapshot of the stored data of a hologram.
+ *
+ * @param id The hologram ID
+ * @param type The hologram type or NULL
+ * @param world The world name
+ * @param x The X coordinate
+ * @param y The Y coordinate
+ * @param z The Z coordinate
+ * @param renderer The renderer type name
+ * @param standIds The persistent entity IDs
+ * @param text The hologram text
+ */
+public record HologramRecord(UUID id, String type, String world, double x, double y, double z,
+                             String renderer, List<UUID> standIds, List<String> text) {
+    public HologramRecord {
+        standIds = List.copyOf(standIds);
+        text = List.copyOf(text);
+    }
+
+    /**
+     * Return the location as stored in holograms.yml
+     *
+     * @return The location string
+     */
+    public String locationString() {
+        return world + "," + String.format("%.2f,%.2f,%.2f", x, y, z);
+    }
+
+    /**
+     * Parse a location string as stored in holograms.yml, without looking up the world.
+     *
+     * @return The record with the location applied, or NULL if the string is invalid
+     */
+    public static HologramRecord of(UUID id, String type, String location, String renderer, List<UUID> standIds, List<String> text) {
+        if (location == null) {
+            return null;
+        }
+
+        String[] data = location.split(",");
+        if (data.length < 4) {
+            return null;
+        }
+
+        try {
+            return new HologramRecord(id, type, data[0], Double.parseDouble(data[1]), Double.parseDouble(data[2]),
+                    Double.parseDouble(data[3]), renderer, standIds, text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the record in its binary form.
+     *
+     * @param out The output
+     * @throws IOException If the write fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+        out.writeUTF(type == null ? "" : type);
+        out.writeUTF(world);
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+        out.writeUTF(renderer == null ? "" : renderer);
+
+        out.writeInt(standIds.size());
+        for (UUID standId : standIds) {
+            out.writeLong(standId.getMostSignificantBits());
+            out.writeLong(standId.getLeastSignificantBits());
+        }
+
+        out.writeInt(text.size());
+        for (String line : text) {
+            out.writeUTF(line);
+        }
+    }
+
+    /**
+     * Read a record from its binary form.
+     *
+     * @param in The input
+     * @return The record
+     * @throws IOException If the read fails
+     */
+    public static HologramRecord read(DataInput in) throws IOException {
+        UUID id = new UUID(in.readLong(), in.readLong());
+        String type = in.readUTF();
+        String world = in.readUTF();
+        double x = in.readDouble();
+        double y = in.readDouble();
+        double z = in.readDouble();
+        String renderer = in.readUTF();
+
+        int standCount = in.readInt();
+        List<UUID> standIds = new ArrayList<>(standCount);
+        for (int i = 0; i < standCount; i++) {
+            standIds.add(new UUID(in.readLong(), in.readLong()));
+        }
+
+        int lineCount = in.readInt();
+        List<String> text = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            text.add(in.readUTF());
+        }
+
+        return new HologramRecord(id, type.isEmpty() ? null : type, world, x, y, z,
+                renderer.isEmpty() ? null : renderer, standIds, text);
+    }
+}
@@ -0,0 +1,59 @@
+package com.stemcraft.hologram;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Draws the lines of a single hologram into the world.
+ */
+public interface HologramRenderer {
+    /**
+     * Create or update the hologram lines. Lines are placed downwards from the location.
+     *
+     * @param location The top location of the hologram
+     * @param text The lines of the hologram
+     * @param viewers The players that can see the lines, or null for all players
+     */
+    void render(Location location, List<String> text, Collection<Player> viewers);
+
+    /**
+     * Show the rendered lines to a player.
+     *
+     * @param player The player
+     */
+    void show(Player player);
+
+    /**
+     * Hide the rendered lines from a player.
+     *
+     * @param player The player
+     */
+    void hide(Player player);
+
+    /**
+     * Take ownership of existing line entities, such as those left in the chunk from before a restart.
+     * Entities are adopted in order as the first lines.
+     *
+     * @param entities The entities to adopt
+     * @param viewers The players that can see the lines, or null for all players
+     * @return The entities that were adopted
+     */
+    List<Entity> adopt(List<Entity> entities, Collection<Player> viewers);
+
+    /**
+     * Remove everything this renderer has drawn.
+     */
+    void remove();
+
+    /**
+     * Return the IDs of the persistent entities used by the renderer, so they can be tracked across restarts.
+     *
+     * @return The entity IDs
+     */
+    List<UUID> getEntityIds();
+}
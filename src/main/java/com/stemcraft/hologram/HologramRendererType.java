@@ -0,0 +1,64 @@
+package com.stemcraft.hologram;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The available hologram rendering backends.
+ */
+public enum HologramRendererType {
+    /**
+     * Invisible, persistent armor stands showing a custom name.
+     */
+    ARMOR_STAND(ArmorStandRenderer::new, true),
+
+    /**
+     * Non-persistent text display entities that are not saved with the chunk.
+     */
+    TEXT_DISPLAY(TextDisplayRenderer::new, false);
+
+    private final Function<UUID, HologramRenderer> factory;
+    private final boolean persistent;
+
+    HologramRendererType(Function<UUID, HologramRenderer> factory, boolean persistent) {
+        this.factory = factory;
+        this.persistent = persistent;
+    }
+
+    /**
+     * Are the entities of this renderer saved with their chunk.
+     *
+     * @return If the entities are persistent
+     */
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * Create a new renderer of this type.
+     *
+     * @param owner The ID of the hologram being rendered
+     * @return The renderer
+     */
+    public HologramRenderer create(UUID owner) {
+        return factory.apply(owner);
+    }
+
+    /**
+     * Parse a renderer type, defaulting to armor stands.
+     *
+     * @param name The type name
+     * @return The renderer type
+     */
+    public static HologramRendererType fromString(String name) {
+        if (name != null) {
+            for (HologramRendererType type : values()) {
+                if (type.name().equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+        }
+
+        return ARMOR_STAND;
+    }
+}
@@ -0,0 +1,317 @@
+package com.stemcraft.hologram;
+
+import com.stemcraft.STEMCraftLib;
+import com.stemcraft.util.SCFile;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Stores holograms as a holograms.yml snapshot plus an append-only journal of changes. Changes are
+ * written to the journal on a background thread and the journal is compacted into the snapshot
+ * once it grows past a limit, on startup and on shutdown.
+ * <p>
+ * Each journal entry is framed with its length and a CRC32, so a partially written entry at the end
+ * of the journal (such as after a crash) is ignored when replaying.
+ */
+public class HologramStore {
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final long COMPACT_SIZE = 1024 * 1024;
+    private static final int MAX_ENTRY_SIZE = 16 * 1024 * 1024;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final ExecutorService writer;
+
+    // only used on the writer thread once loaded
+    private final Map<UUID, HologramRecord> records = new HashMap<>();
+    private FileChannel journal = null;
+    private long journalSize = 0;
+
+    public HologramStore(File dataFolder) {
+        this.snapshotFile = new File(dataFolder, "holograms.yml").toPath();
+        this.journalFile = new File(dataFolder, "holograms.journal").toPath();
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "STEMCraftLib Hologram Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load the snapshot and replay the journal on top of it. Must be called before any changes are written.
+     *
+     * @return The stored holograms
+     */
+    public Map<UUID, HologramRecord> load() {
+        records.clear();
+        loadSnapshot();
+        long validSize = replayJournal();
+
+        try {
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            journal.truncate(validSize);
+            journal.position(validSize);
+            journalSize = validSize;
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.SEVERE, "Could not open the holograms journal", e);
+        }
+
+        if (validSize > 0) {
+            writer.execute(this::compact);
+        }
+
+        return new HashMap<>(records);
+    }
+
+    /**
+     * Write changed holograms to the journal.
+     *
+     * @param changed The changed hologram records
+     */
+    public void put(Collection<HologramRecord> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        List<HologramRecord> batch = List.copyOf(changed);
+        writer.execute(() -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                for (HologramRecord record : batch) {
+                    records.put(record.id(), record);
+                    bytes.write(frame(PUT, record::write));
+                }
+
+                append(bytes.toByteArray());
+            } catch (IOException e) {
+                STEMCraftLib.log(Level.SEVERE, "Failed to write to the holograms journal", e);
+            }
+        });
+    }
+
+    /**
+     * Write a deleted hologram to the journal.
+     *
+     * @param id The hologram ID
+     */
+    public void delete(UUID id) {
+        writer.execute(() -> {
+            try {
+                records.remove(id);
+                append(frame(DELETE, out -> {
+                    out.writeLong(id.getMostSignificantBits());
+                    out.writeLong(id.getLeastSignificantBits());
+                }));
+            } catch (IOException e) {
+                STEMCraftLib.log(Level.SEVERE, "Failed to write to the holograms journal", e);
+            }
+        });
+    }
+
+    /**
+     * Compact the journal and wait for all writes to finish.
+     */
+    public void close() {
+        writer.execute(() -> {
+            compact();
+
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+            } catch (IOException e) {
+                STEMCraftLib.log(Level.SEVERE, "Failed to close the holograms journal", e);
+            }
+        });
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                STEMCraftLib.log(Level.SEVERE, "Timed out waiting for holograms to be saved");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    /**
+     * Build a journal entry
+     */
+    private static byte[] frame(byte op, RecordWriter body) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(op);
+        body.write(out);
+        out.flush();
+
+        byte[] data = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + data.length);
+        buffer.putInt(data.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(data);
+        return buffer.array();
+    }
+
+    /**
+     * Append entries to the journal, compacting if it is now too large
+     */
+    private void append(byte[] data) throws IOException {
+        if (journal == null) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal.force(false);
+        journalSize += data.length;
+
+        if (journalSize > COMPACT_SIZE) {
+            compact();
+        }
+    }
+
+    /**
+     * Write all records to the snapshot and empty the journal
+     */
+    private void compact() {
+        YamlConfiguration config = new YamlConfiguration();
+        for (HologramRecord record : records.values()) {
+            String path = "holograms." + record.id();
+            config.set(path + ".type", record.type());
+            config.set(path + ".location", record.locationString());
+            config.set(path + ".stands", record.standIds().stream().map(UUID::toString).toList());
+            config.set(path + ".text", record.text());
+            config.set(path + ".renderer", record.renderer());
+        }
+
+        try {
+            SCFile.writeAtomically(snapshotFile, config.saveToString().getBytes(StandardCharsets.UTF_8));
+
+            if (journal != null) {
+                journal.truncate(0);
+                journal.position(0);
+                journalSize = 0;
+            }
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.SEVERE, "Failed to save the holograms configuration file", e);
+        }
+    }
+
+    /**
+     * Load the records from the snapshot
+     */
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(snapshotFile.toFile());
+        ConfigurationSection section = config.getConfigurationSection("holograms");
+        if (section == null) {
+            return;
+        }
+
+        for (String key : section.getKeys(false)) {
+            try {
+                UUID id = UUID.fromString(key);
+                List<UUID> stands = section.getStringList(key + ".stands").stream().map(UUID::fromString).toList();
+                HologramRecord record = HologramRecord.of(id, section.getString(key + ".type"),
+                        section.getString(key + ".location"), section.getString(key + ".renderer"),
+                        stands, section.getStringList(key + ".text"));
+
+                if (record != null) {
+                    records.put(id, record);
+                } else {
+                    STEMCraftLib.log(Level.WARNING, "Ignoring hologram " + key + " with an invalid location");
+                }
+            } catch (IllegalArgumentException e) {
+                STEMCraftLib.log(Level.WARNING, "Ignoring hologram " + key + " with an invalid ID");
+            }
+        }
+    }
+
+    /**
+     * Apply the journal entries to the records
+     *
+     * @return The size of the valid part of the journal
+     */
+    private long replayJournal() {
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+
+        long valid = 0;
+        int entries = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_ENTRY_SIZE) {
+                    break;
+                }
+
+                byte[] data = new byte[length];
+                in.readFully(data);
+
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                DataInputStream entry = new DataInputStream(new ByteArrayInputStream(data));
+                byte op = entry.readByte();
+                if (op == PUT) {
+                    HologramRecord record = HologramRecord.read(entry);
+                    records.put(record.id(), record);
+                } else if (op == DELETE) {
+                    records.remove(new UUID(entry.readLong(), entry.readLong()));
+                }
+
+                valid += 8 + length;
+                entries++;
+            }
+        } catch (EOFException e) {
+            // partially written entry
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.SEVERE, "Failed to read the holograms journal", e);
+        }
+
+        if (entries > 0) {
+            STEMCraftLib.log("Replayed {count} hologram journal entries", "count", String.valueOf(entries));
+        }
+
+        return valid;
+    }
+}
@@ -0,0 +1,52 @@
+package com.stemcraft.hologram;
+
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.UUID;
+
+/**
+ * Marks the entities drawn for a hologram with the ID of the hologram that owns them.
+ */
+public class HologramTag {
+    private static NamespacedKey key = null;
+
+    private static NamespacedKey key() {
+        if (key == null) {
+            key = new NamespacedKey(STEMCraftLib.getInstance(), "hologram");
+        }
+
+        return key;
+    }
+
+    /**
+     * Tag an entity as owned by a hologram.
+     *
+     * @param entity The entity
+     * @param owner The hologram ID
+     */
+    public static void tag(Entity entity, UUID owner) {
+        entity.getPersistentDataContainer().set(key(), PersistentDataType.STRING, owner.toString());
+    }
+
+    /**
+     * Return the hologram that owns an entity.
+     *
+     * @param entity The entity
+     * @return The hologram ID, or NULL if the entity is not tagged
+     */
+    public static UUID getOwner(Entity entity) {
+        String owner = entity.getPersistentDataContainer().get(key(), PersistentDataType.STRING);
+        if (owner == null) {
+            return null;
+        }
+
+        try {
+            return UUID.fromString(owner);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.stemcraft.hologram;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A registered hologram type, its text supplier and the last text supplied, which is shared by every
+ * hologram of the type. Types with an interval are refreshed on it, dynamic types with a supplier
+ * that is called off the main thread.
+ */
+@Getter
+public class HologramType {
+    private final String name;
+    private final Supplier<List<String>> supplier;
+    private final Supplier<CompletableFuture<List<String>>> asyncSupplier;
+    private final long interval;
+
+    private List<String> text = null;
+    private boolean refreshing = false;
+    private long lastRefreshTick = 0;
+    private long refreshStarted = 0;
+
+    private long refreshCount = 0;
+    private long skippedCount = 0;
+    private long failedCount = 0;
+    private long lastLatency = 0;
+    private long totalLatency = 0;
+    private long maxLatency = 0;
+
+    private HologramType(String name, Supplier<List<String>> supplier,
+                         Supplier<CompletableFuture<List<String>>> asyncSupplier, long interval) {
+        this.name = name;
+        this.supplier = supplier;
+        this.asyncSupplier = asyncSupplier;
+        this.interval = interval;
+    }
+
+    /**
+     * Create a type using a supplier called on the main thread, refreshed only when requested.
+     *
+     * @param name The type name
+     * @param supplier The text supplier
+     */
+    public HologramType(String name, Supplier<List<String>> supplier) {
+        this(name, supplier, null, 0);
+    }
+
+    /**
+     * Create a dynamic type using a supplier called off the main thread.
+     *
+     * @param name The type name
+     * @param asyncSupplier The text supplier
+     * @param interval The ticks between refreshes
+     */
+    public HologramType(String name, Supplier<CompletableFuture<List<String>>> asyncSupplier, long interval) {
+        this(name, null, asyncSupplier, Math.max(1, interval));
+    }
+
+    /**
+     * Create a type using a supplier called on the main thread, refreshed on an interval.
+     *
+     * @param name The type name
+     * @param supplier The text supplier
+     * @param interval The ticks between refreshes, or 0 to only refresh when requested
+     * @return The type
+     */
+    public static HologramType of(String name, Supplier<List<String>> supplier, long interval) {
+        return new HologramType(name, supplier, null, Math.max(0, interval));
+    }
+
+    /**
+     * Is the type refreshed off the main thread.
+     *
+     * @return If the type is dynamic
+     */
+    public boolean isDynamic() {
+        return asyncSupplier != null;
+    }
+
+    /**
+     * Is the type due for a refresh.
+     *
+     * @param tick The current server tick
+     * @return If a refresh should start
+     */
+    public boolean isDue(long tick) {
+        return interval > 0 && !refreshing && tick - lastRefreshTick >= interval;
+    }
+
+    /**
+     * Mark a refresh as started.
+     *
+     * @param tick The current server tick
+     */
+    public void refreshStarted(long tick) {
+        refreshing = true;
+        lastRefreshTick = tick;
+        refreshStarted = System.nanoTime();
+    }
+
+    /**
+     * Mark a refresh as skipped as no holograms of the type are in use.
+     *
+     * @param tick The current server tick
+     */
+    public void refreshSkipped(long tick) {
+        lastRefreshTick = tick;
+        skippedCount++;
+    }
+
+    /**
+     * Mark a refresh as complete and record its latency.
+     *
+     * @param text The new text, or null if the refresh failed
+     */
+    public void refreshCompleted(List<String> text) {
+        long latency = System.nanoTime() - refreshStarted;
+        refreshing = false;
+
+        if (text == null) {
+            failedCount++;
+            return;
+        }
+
+        this.text = text;
+        refreshCount++;
+        lastLatency = latency;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+    }
+
+    /**
+     * Update the text from the main thread supplier.
+     *
+     * @param tick The current server tick
+     * @return The new text
+     */
+    public List<String> supply(long tick) {
+        if (supplier != null) {
+            refreshStarted(tick);
+            List<String> supplied = null;
+            try {
+                supplied = supplier.get();
+            } finally {
+                refreshCompleted(supplied);
+            }
+        }
+
+        return text;
+    }
+
+    /**
+     * Return the last text supplied, calling the main thread supplier only if it has not been called yet.
+     *
+     * @param tick The current server tick
+     * @return The text, or null if none has been supplied
+     */
+    public List<String> getCachedText(long tick) {
+        if (text == null && supplier != null && !refreshing) {
+            return supply(tick);
+        }
+
+        return text;
+    }
+
+    /**
+     * Return the average refresh latency in nanoseconds, from starting the supplier to the text being applied.
+     *
+     * @return The average latency
+     */
+    public long getAverageLatency() {
+        return refreshCount == 0 ? 0 : totalLatency / refreshCount;
+    }
+}
@@ -0,0 +1,58 @@
+package com.stemcraft.hologram;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TextDisplay;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Renders hologram lines as text displays. The displays are not persistent, so they are never
+ * written to the region files and are simply created again when the chunk next loads.
+ */
+public class TextDisplayRenderer extends EntityRenderer<TextDisplay> {
+    // armor stand names are drawn above the head of the stand, so line up with those
+    private static final double NAME_HEIGHT = 2.3;
+
+    public TextDisplayRenderer(UUID owner) {
+        super(owner);
+    }
+
+    @Override
+    protected Class<TextDisplay> entityClass() {
+        return TextDisplay.class;
+    }
+
+    @Override
+    protected void configure(TextDisplay entity, Component text) {
+        entity.setPersistent(false);
+        entity.setBillboard(Display.Billboard.CENTER);
+        entity.text(text);
+    }
+
+    @Override
+    protected void setText(TextDisplay entity, Component text) {
+        entity.text(text);
+    }
+
+    @Override
+    protected double offsetY() {
+        return NAME_HEIGHT;
+    }
+
+    @Override
+    public List<Entity> adopt(List<Entity> entities, Collection<Player> viewers) {
+        // displays are never persisted, so anything found is stale
+        return List.of();
+    }
+
+    @Override
+    public List<UUID> getEntityIds() {
+        // nothing is persisted
+        return List.of();
+    }
+}
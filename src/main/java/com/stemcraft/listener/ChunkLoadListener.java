@@ -1,6 +1,6 @@
 package com.stemcraft.listener;
 
-import com.stemcraft.util.SCHologram;
+import com.stemcraft.util.SCChunkQueue;
 import org.bukkit.Chunk;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -11,6 +11,6 @@ public class ChunkLoadListener implements Listener {
     public void onChunkLoad(ChunkLoadEvent event) {
         Chunk chunk = event.getChunk();
 
-        SCHologram.updateChunk(chunk);
+        SCChunkQueue.enqueue(chunk);
     }
 }
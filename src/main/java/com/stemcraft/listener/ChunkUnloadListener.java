@@ -0,0 +1,13 @@
+package com.stemcraft.listener;
+
+import com.stemcraft.util.SCHologram;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+public class ChunkUnloadListener implements Listener {
+    @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        SCHologram.unloadChunk(event.getChunk());
+    }
+}
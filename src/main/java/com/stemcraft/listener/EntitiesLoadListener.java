@@ -0,0 +1,13 @@
+package com.stemcraft.listener;
+
+import com.stemcraft.util.SCHologram;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+
+public class EntitiesLoadListener implements Listener {
+    @EventHandler
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        SCHologram.reconcileEntities(event.getChunk(), event.getEntities());
+    }
+}
@@ -1,6 +1,7 @@
 package com.stemcraft.listener;
 
 import com.stemcraft.util.SCPlayer;
+import com.stemcraft.util.SCWorld;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
@@ -17,6 +18,7 @@ public class PlayerJoinListener implements Listener {
         Location spawn = Objects.requireNonNull(Bukkit.getServer().getWorld("world")).getSpawnLocation();
 
         SCPlayer.updateCacheName(String.valueOf(player.getUniqueId()), player.getName());
+        SCWorld.playerJoin(player);
 
         SCPlayer.teleport(player, spawn);
     }
@@ -0,0 +1,15 @@
+package com.stemcraft.listener;
+
+import com.stemcraft.util.SCHologram;
+import com.stemcraft.util.SCWorld;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerQuitListener implements Listener {
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        SCHologram.removeViewer(event.getPlayer());
+        SCWorld.playerQuit(event.getPlayer());
+    }
+}
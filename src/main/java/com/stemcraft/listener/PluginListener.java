@@ -0,0 +1,20 @@
+package com.stemcraft.listener;
+
+import com.stemcraft.world.GeneratorRegistry;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+
+public class PluginListener implements Listener {
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {
+        GeneratorRegistry.pluginEnabled(event.getPlugin());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        GeneratorRegistry.pluginDisabled(event.getPlugin());
+    }
+}
@@ -0,0 +1,16 @@
+package com.stemcraft.listener;
+
+import com.stemcraft.util.SCWorld;
+import com.stemcraft.world.WorldRegistry;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+
+public class WorldLoadListener implements Listener {
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        WorldRegistry.loaded(event.getWorld().getName());
+        SCWorld.worldLoaded(event.getWorld());
+    }
+}
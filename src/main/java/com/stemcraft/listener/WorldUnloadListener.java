@@ -0,0 +1,18 @@
+package com.stemcraft.listener;
+
+import com.stemcraft.util.SCHologram;
+import com.stemcraft.util.SCWorld;
+import com.stemcraft.world.WorldRegistry;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+public class WorldUnloadListener implements Listener {
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        SCHologram.unloadWorld(event.getWorld());
+        WorldRegistry.unloaded(event.getWorld().getName());
+        SCWorld.worldUnloaded(event.getWorld());
+    }
+}
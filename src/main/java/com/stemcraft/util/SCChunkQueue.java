@@ -0,0 +1,188 @@
+package com.stemcraft.util;
+
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Chunk load queue. Loaded chunks are queued once and passed to the registered handlers in batches,
+ * using no more than the configured time of each tick.
+ */
+public class SCChunkQueue {
+    private static final List<Consumer<List<Chunk>>> handlers = new ArrayList<>();
+    private static final LinkedHashMap<QueuedChunk, Long> queue = new LinkedHashMap<>();
+    private static long budgetNanos = 5_000_000L;
+    private static int batchSize = 32;
+    private static BukkitTask drainTask = null;
+
+    // drain statistics
+    private static long processedCount = 0;
+    private static long totalLatency = 0;
+    private static long maxLatency = 0;
+    private static long lastDrainTime = 0;
+    private static int maxDepth = 0;
+
+    /**
+     * A chunk waiting to be processed
+     */
+    private record QueuedChunk(UUID world, long key) {}
+
+    /**
+     * Load the settings and start draining the queue
+     */
+    public static void init() {
+        FileConfiguration settings = STEMCraftLib.getInstance().getConfig();
+        budgetNanos = (long) (Math.max(0.1, settings.getDouble("chunk-queue.budget-ms", 5)) * 1_000_000L);
+        batchSize = Math.max(1, settings.getInt("chunk-queue.batch-size", 32));
+
+        if (drainTask != null) {
+            drainTask.cancel();
+        }
+
+        drainTask = Bukkit.getScheduler().runTaskTimer(STEMCraftLib.getInstance(), SCChunkQueue::drain, 1, 1);
+    }
+
+    /**
+     * Stop draining the queue and discard any queued chunks
+     */
+    public static void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+
+        queue.clear();
+    }
+
+    /**
+     * Register a handler for loaded chunks. Handlers are called on the main thread with a batch of
+     * chunks that are still loaded.
+     *
+     * @param handler The chunk batch handler.
+     */
+    public static void register(Consumer<List<Chunk>> handler) {
+        handlers.add(handler);
+    }
+
+    /**
+     * Queue a loaded chunk to be processed. Chunks already queued are not added again.
+     *
+     * @param chunk The chunk.
+     */
+    public static void enqueue(Chunk chunk) {
+        queue.putIfAbsent(new QueuedChunk(chunk.getWorld().getUID(), chunk.getChunkKey()), System.nanoTime());
+        maxDepth = Math.max(maxDepth, queue.size());
+    }
+
+    /**
+     * Process queued chunks until the queue is empty or the tick budget is used
+     */
+    private static void drain() {
+        if (queue.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Chunk> batch = new ArrayList<>(batchSize);
+
+        while (!queue.isEmpty() && System.nanoTime() - start < budgetNanos) {
+            Iterator<Map.Entry<QueuedChunk, Long>> iterator = queue.entrySet().iterator();
+            long now = System.nanoTime();
+
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                Map.Entry<QueuedChunk, Long> entry = iterator.next();
+                iterator.remove();
+
+                // chunks unloaded while waiting are skipped
+                QueuedChunk queued = entry.getKey();
+                World world = Bukkit.getWorld(queued.world());
+                int x = (int) queued.key();
+                int z = (int) (queued.key() >> 32);
+                if (world == null || !world.isChunkLoaded(x, z)) {
+                    continue;
+                }
+
+                long latency = now - entry.getValue();
+                processedCount++;
+                totalLatency += latency;
+                maxLatency = Math.max(maxLatency, latency);
+                batch.add(world.getChunkAt(x, z));
+            }
+
+            if (!batch.isEmpty()) {
+                for (Consumer<List<Chunk>> handler : handlers) {
+                    try {
+                        handler.accept(Collections.unmodifiableList(batch));
+                    } catch (Exception e) {
+                        STEMCraftLib.log(Level.SEVERE, "A chunk load handler failed", e);
+                    }
+                }
+
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        lastDrainTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Return the number of chunks waiting to be processed
+     *
+     * @return The queue depth.
+     */
+    public static int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Return the largest number of chunks that have been waiting at once
+     *
+     * @return The maximum queue depth.
+     */
+    public static int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Return the number of chunks passed to the handlers
+     *
+     * @return The processed chunk count.
+     */
+    public static long getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * Return the average time in nanoseconds between a chunk being queued and processed
+     *
+     * @return The average latency.
+     */
+    public static long getAverageLatency() {
+        return processedCount == 0 ? 0 : totalLatency / processedCount;
+    }
+
+    /**
+     * Return the longest time in nanoseconds between a chunk being queued and processed
+     *
+     * @return The maximum latency.
+     */
+    public static long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * Return the time in nanoseconds spent draining the queue in the last tick it had work
+     *
+     * @return The drain time.
+     */
+    public static long getLastDrainTime() {
+        return lastDrainTime;
+    }
+}
@@ -1,191 +1,256 @@
 package com.stemcraft.util;
 
 import com.stemcraft.STEMCraftLib;
+import com.stemcraft.hologram.ComponentCache;
+import com.stemcraft.hologram.HologramRecord;
+import com.stemcraft.hologram.HologramRenderer;
+import com.stemcraft.hologram.HologramRendererType;
+import com.stemcraft.hologram.HologramStore;
+import com.stemcraft.hologram.HologramTag;
+import com.stemcraft.hologram.HologramType;
 import lombok.Getter;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.entity.ArmorStand;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Entity;
-import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 /**
  * Hologram helper class
  */
 public class SCHologram {
-    private static final Map<String, Supplier<List<String>>> types = new HashMap<>();
+    private static final Map<String, HologramType> types = new HashMap<>();
+    private static final Map<String, List<String>> typeResults = new ConcurrentHashMap<>();
+    private static final AtomicBoolean typeResultsScheduled = new AtomicBoolean(false);
+    private static final List<String> FAILED_REFRESH = Collections.unmodifiableList(new ArrayList<>());
+    private static BukkitTask typeTask = null;
+    private static final Map<UUID, HologramRecord> records = new HashMap<>();
     private static final Map<UUID, HologramData> holograms = new HashMap<>();
-    private static File configFile = null;
-    private static YamlConfiguration config = null;
+    private static final Map<String, Map<Long, Set<UUID>>> chunkIndex = new HashMap<>();
+    private static final Map<String, Set<UUID>> typeIndex = new HashMap<>();
+    private static HologramStore store = null;
     private static BukkitRunnable saveTask;
-    private static final double LINE_SPACING = 0.25;
+
+    // per-viewer visibility
+    private static final double VIEW_MARGIN = 8;
+    private static final Map<UUID, Set<UUID>> playerViews = new HashMap<>();
+    private static final ArrayDeque<ViewChange> viewQueue = new ArrayDeque<>();
+    private static double viewDistance = 48;
+    private static int viewBudget = 100;
+    private static BukkitTask viewTask = null;
+    private static BukkitTask viewQueueTask = null;
+
+    // stands found in the world when chunk entities load
+    private static long standsAdopted = 0;
+    private static long standsCulled = 0;
+
+    /**
+     * A pending change to the players viewing a hologram
+     */
+    private record ViewChange(UUID hologram, Player player, boolean show) {}
 
     @Getter
     static class HologramData {
         private final UUID id;
         private final String type;
-        private final List<ArmorStand> stands;
         private final List<UUID> standIds;
         private List<String> text;
-        private final Location location;
+        private Location location;
+        private HologramRendererType rendererType;
+        private HologramRenderer renderer;
+        private final Set<Player> viewers = new HashSet<>();
         private boolean dirty;
-        private boolean deleting = false;
 
-        public HologramData(UUID id, String type, Location location, List<UUID> stand, List<String> text) {
-            this.stands = new ArrayList<>();
+        public HologramData(UUID id, String type, Location location, List<UUID> stand, List<String> text, HologramRendererType rendererType) {
             this.id = id;
             this.type = (type == null || type.isEmpty()) ? null : type;
             this.location = location;
             this.standIds = (stand == null) ? new ArrayList<>() : stand;
             this.text = (text == null) ? new ArrayList<>() : text;
+            this.rendererType = (rendererType == null) ? HologramRendererType.ARMOR_STAND : rendererType;
+            this.renderer = this.rendererType.create(id);
             this.dirty = false;
 
-            if(this.type != null && this.text.isEmpty() && types.containsKey(this.type)) {
-                this.text = types.get(this.type).get();
+            // the type text is current, the stored text is only a fallback while the type is not registered
+            if(this.type != null && types.containsKey(this.type)) {
+                List<String> typeText = types.get(this.type).getCachedText(Bukkit.getCurrentTick());
+                if(typeText != null) {
+                    this.text = typeText;
+                }
             }
         }
 
         /**
-         * Save the data to the configuration file
+         * Return a snapshot of the data to store
          *
-         * @param force Save the data to the configuration file even if it hasn't changed
-         * @return If data was saved to the configuration file
+         * @return The hologram record
          */
-        public boolean save(boolean force) {
-            if(deleting) {
-                stands.forEach(entity -> {
-                    if(entity != null && entity.isValid()) {
-                        entity.remove();
-                    }
-                });
-
-                stands.clear();
-                config.set("holograms." + id, null);
+        public HologramRecord toRecord() {
+            return new HologramRecord(id, type, location.getWorld().getName(), location.getX(), location.getY(),
+                    location.getZ(), rendererType.name(), standIds, text);
+        }
 
-                holograms.remove(id);
+        /**
+         * Update the rendered lines with the data
+         */
+        public void update() {
+            // check if chunk is loaded (without loading it) and its entities have been read, so existing
+            // stands can be adopted before any new ones are spawned
+            World world = location.getWorld();
+            int chunkX = location.getBlockX() >> 4;
+            int chunkZ = location.getBlockZ() >> 4;
+            if(world.isChunkLoaded(chunkX, chunkZ) && world.getChunkAt(chunkX, chunkZ).isEntitiesLoaded()) {
+                // when culling, lines stay spawned and are only shown to the viewers
+                renderer.render(location, text, isCulling() ? viewers : null);
 
-                this.dirty = true;
-                return true;
+                List<UUID> entityIds = renderer.getEntityIds();
+                if(!standIds.equals(entityIds)) {
+                    standIds.clear();
+                    standIds.addAll(entityIds);
+                    this.dirty = true;
+                }
             }
+        }
 
-            if(dirty || force) {
-                config.set("holograms." + id + ".type", type);
-                config.set("holograms." + id + ".location", SCString.locationToString(location, true, false));
-                config.set("holograms." + id + ".stands", standIds.stream()
-                        .map(UUID::toString)
-                        .collect(Collectors.toList()));
-                config.set("holograms." + id + ".text", text);
+        /**
+         * Take ownership of the stands found for this hologram, removing any that are not needed
+         * @param entities The entities found in the world
+         * @return The number of entities adopted
+         */
+        private int adopt(List<Entity> entities) {
+            // keep the persisted line order where known
+            List<Entity> ordered = new ArrayList<>(entities);
+            ordered.sort(Comparator.comparingInt(entity -> {
+                int index = standIds.indexOf(entity.getUniqueId());
+                return index < 0 ? Integer.MAX_VALUE : index;
+            }));
 
-                dirty = false;
-                return true;
+            List<Entity> adopted = renderer.adopt(ordered, isCulling() ? viewers : null);
+            for(Entity entity : ordered) {
+                if(!adopted.contains(entity)) {
+                    entity.remove();
+                }
             }
 
-            return false;
+            return adopted.size();
         }
 
         /**
-         * Save the data to the configuration file
-         *
-         * @return If data was saved to the configuration file
+         * Add a player that can see the hologram
+         * @param player The player
          */
-        public boolean save() {
-            return save(false);
+        public void addViewer(Player player) {
+            if(viewers.add(player)) {
+                renderer.show(player);
+            }
         }
 
         /**
-         * Update the armor stands with the data
+         * Remove a player that can see the hologram
+         * @param player The player
          */
-        public void update() {
-            // check if chunk is loaded
-            if(location.getChunk().isLoaded()) {
-
-                // check armor stands are valid
-                // Safe removal via iterator
-                stands.removeIf(entity -> entity == null || !entity.isValid());
-
-                // check if too many stands
-                while(stands.size() > text.size()) {
-                    Entity entity = stands.getLast();
-                    stands.remove(entity);
-                    entity.remove();
-                }
-
-                // update the stands (create if required)
-                double y = location.getY() + (LINE_SPACING * (text.size() + 1));
-                Location standLoc = location;
-                int lineCount = 0;
+        public void removeViewer(Player player) {
+            if(viewers.remove(player) && player.isOnline()) {
+                renderer.hide(player);
+            }
+        }
 
-                for (int i = 0; i < text.size(); i++) {
-                    UUID standId;
-                    String str = text.get(i);
+        /**
+         * Update the text of the hologram
+         * @param text The text to use
+         */
+        public void setText(List<String> text) {
+            if(text == null || this.text.equals(text)) {
+                return;
+            }
 
-                    if(str.isEmpty()) {
-                        standLoc = standLoc.subtract(0, (LINE_SPACING / 2), 0);
-                        continue;
-                    }
+            this.text = text;
+            this.dirty = true;
+            update();
+        }
 
-                    standLoc = standLoc.subtract(0, LINE_SPACING, 0);
+        /**
+         * Move the hologram to a new location
+         * @param location The new location
+         */
+        public void setLocation(Location location) {
+            unindex(records.get(id));
+            this.location = location.clone();
 
-                    if(stands.size() < lineCount + 1) {
-                        // create new stand
-                        ArmorStand entity = (ArmorStand) location.getWorld().spawnEntity(standLoc, EntityType.ARMOR_STAND);
-                        entity.setVisible(false);
-                        entity.setCustomNameVisible(true);
-                        entity.customName(LegacyComponentSerializer.legacyAmpersand().deserialize(str));
-                        entity.setGravity(false);
+            // lines are drawn again at the new location
+            renderer.remove();
+            standIds.clear();
 
-                        standId = entity.getUniqueId();
-                        stands.add(entity);
-                    } else {
-                        ArmorStand entity = stands.get(lineCount);
-                        entity.teleport(standLoc);
-                        entity.customName(LegacyComponentSerializer.legacyAmpersand().deserialize(str));
+            HologramRecord record = toRecord();
+            records.put(id, record);
+            index(record);
 
-                        standId = entity.getUniqueId();
-                    }
+            this.dirty = true;
+            update();
+        }
 
-                    if(standIds.size() <= i + 1) {
-                        standIds.add(standId);
-                        this.dirty = true;
-                    } else {
-                        if(standIds.get(i) != standId) {
-                            this.dirty = true;
-                            standIds.set(i, standId);
-                        }
-                    }
+        /**
+         * Change the rendering backend of the hologram
+         * @param rendererType The renderer to use
+         */
+        public void setRendererType(HologramRendererType rendererType) {
+            if(this.rendererType != rendererType) {
+                renderer.remove();
+                standIds.clear();
 
-                    lineCount++;
-                }
+                this.rendererType = rendererType;
+                this.renderer = rendererType.create(id);
+                this.dirty = true;
+                update();
             }
         }
 
         /**
-         * Update the text of the hologram
-         * @param text The text to use
+         * Delete the hologram and its data
          */
-        public void setText(List<String> text) {
-            this.text = text;
-            update();
+        public void delete() {
+            SCHologram.delete(id);
         }
 
         /**
-         * Delete the hologram and its data
+         * Release the hologram, storing any changes. Persistent stands are left in the chunk to be
+         * adopted again when it next loads, while other rendered lines are removed.
          */
-        public void delete() {
-            this.deleting = true;
+        private void evict() {
+            if(!rendererType.isPersistent()) {
+                renderer.remove();
+            } else {
+                // the stands are shown again to the players in range once the chunk loads
+                for(Player viewer : viewers) {
+                    if(viewer.isOnline()) {
+                        renderer.hide(viewer);
+                    }
+                }
+            }
 
-            save();
-            SCHologram.saveAll();
+            viewers.clear();
+
+            if(dirty) {
+                HologramRecord record = toRecord();
+                records.put(id, record);
+                store.put(List.of(record));
+                dirty = false;
+            }
+
+            holograms.remove(id);
         }
     }
 
@@ -193,44 +258,121 @@ public class SCHologram {
      * Load the holograms from the configuration file
      */
     public static void init() {
+        records.clear();
         holograms.clear();
+        chunkIndex.clear();
+        typeIndex.clear();
 
-        configFile = new File(STEMCraftLib.getInstance().getDataFolder(), "holograms.yml");
-        if (!configFile.exists()) {
-            try {
-                //noinspection ResultOfMethodCallIgnored
-                configFile.createNewFile();
-            } catch (IOException e) {
-                STEMCraftLib.log(Level.SEVERE, "Could not create the holograms.yml configuration file", e);
-            }
+        FileConfiguration settings = STEMCraftLib.getInstance().getConfig();
+        viewDistance = settings.getDouble("holograms.view-distance", 48);
+        viewBudget = Math.max(1, settings.getInt("holograms.view-budget", 100));
+        long viewInterval = Math.max(1, settings.getLong("holograms.view-interval", 10));
+        ComponentCache.setMaxSize(settings.getInt("holograms.component-cache", 2048));
+
+        if (viewTask != null) {
+            viewTask.cancel();
+            viewQueueTask.cancel();
+            viewTask = null;
+            viewQueueTask = null;
+        }
+
+        playerViews.clear();
+        viewQueue.clear();
+
+        if (typeTask != null) {
+            typeTask.cancel();
         }
 
-        config = YamlConfiguration.loadConfiguration(configFile);
+        typeTask = Bukkit.getScheduler().runTaskTimer(STEMCraftLib.getInstance(), SCHologram::refreshTypes, 1, 1);
 
-        if (config.contains("holograms")) {
-            for (String id : Objects.requireNonNull(config.getConfigurationSection("holograms")).getKeys(false)) {
-                String type = config.getString("holograms." + id + ".type");
-                Location location = SCString.stringToLocation(config.getString("holograms." + id + ".location"));
-                List<UUID> stands = config.getStringList("holograms." + id + ".stands")
-                        .stream()
-                        .map(UUID::fromString).collect(Collectors.toList());
-                List<String> text = config.getStringList("holograms." + id + ".text");
+        if (isCulling()) {
+            viewTask = Bukkit.getScheduler().runTaskTimer(STEMCraftLib.getInstance(), SCHologram::updateViewers, viewInterval, viewInterval);
+            viewQueueTask = Bukkit.getScheduler().runTaskTimer(STEMCraftLib.getInstance(), SCHologram::processViewQueue, 1, 1);
+        }
 
-                UUID uuid = UUID.fromString(id);
-                HologramData hologram = new HologramData(uuid, type, location, stands, text);
-                holograms.put(uuid, hologram);
+        if (store != null) {
+            store.close();
+        }
+
+        // only the chunk index is built here, holograms are materialised when their chunk loads
+        store = new HologramStore(STEMCraftLib.getInstance().getDataFolder());
+        records.putAll(store.load());
+        records.values().forEach(SCHologram::index);
+
+        for (World world : Bukkit.getWorlds()) {
+            Map<Long, Set<UUID>> chunks = chunkIndex.get(world.getName());
+            if (chunks != null) {
+                for (long key : new ArrayList<>(chunks.keySet())) {
+                    if (world.isChunkLoaded((int) key, (int) (key >> 32))) {
+                        loadChunk(world, key);
+                    }
+                }
             }
         }
     }
 
     /**
-     * Register a new hologram type.
+     * Save all holograms and stop the background writer
+     */
+    public static void shutdown() {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+
+        saveAll(true);
+
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    /**
+     * Register a new hologram type. The supplier is called on the main thread when the type is first
+     * used and on updateAll, and the text is shared by all holograms of the type.
      *
      * @param type The hologram type.
      * @param supplier The supplier to update hologram type.
      */
     public static void registerType(String type, Supplier<List<String>> supplier) {
-        types.put(type, supplier);
+        types.put(type, new HologramType(type, supplier));
+    }
+
+    /**
+     * Register a new hologram type that refreshes itself on an interval. The supplier is called on
+     * the main thread, and refreshes are skipped while no holograms of the type are loaded (or
+     * visible when culling).
+     *
+     * @param type The hologram type.
+     * @param supplier The supplier of the hologram text.
+     * @param interval The ticks between refreshes.
+     */
+    public static void registerType(String type, Supplier<List<String>> supplier, long interval) {
+        types.put(type, HologramType.of(type, supplier, interval));
+    }
+
+    /**
+     * Register a new hologram type that refreshes itself on an interval. The supplier is called
+     * off the main thread and the result is applied on the main thread. Refreshes are skipped
+     * while no holograms of the type are loaded (or visible when culling).
+     *
+     * @param type The hologram type.
+     * @param supplier The supplier of the hologram text.
+     * @param interval The ticks between refreshes.
+     */
+    public static void registerDynamicType(String type, Supplier<CompletableFuture<List<String>>> supplier, long interval) {
+        types.put(type, new HologramType(type, supplier, interval));
+    }
+
+    /**
+     * Return a registered hologram type, including its refresh statistics.
+     *
+     * @param type The hologram type.
+     * @return The hologram type or NULL
+     */
+    public static HologramType getType(String type) {
+        return types.get(type);
     }
 
     /**
@@ -240,13 +382,120 @@ public class SCHologram {
      */
     public static void updateAll(String type) {
         if(type != null && !type.isEmpty() && types.containsKey(type)) {
-            List<String> text = types.get(type).get();
+            HologramType hologramType = types.get(type);
+
+            if(hologramType.isDynamic()) {
+                if(!hologramType.isRefreshing()) {
+                    refreshType(hologramType);
+                }
+
+                return;
+            }
+
+            applyText(type, hologramType.supply(Bukkit.getCurrentTick()));
+        }
+    }
+
+    /**
+     * Set the text of all the holograms of a type
+     * @param type The type to update.
+     * @param text The text to use.
+     */
+    private static void applyText(String type, List<String> text) {
+        for (UUID id : typeIndex.getOrDefault(type, Collections.emptySet())) {
+            HologramData hologram = holograms.get(id);
+            if (hologram != null) {
+                hologram.setText(text);
+            }
+        }
+    }
+
+    /**
+     * Refresh any types that are due, starting the refresh of dynamic types off the main thread
+     */
+    private static void refreshTypes() {
+        long tick = Bukkit.getCurrentTick();
+
+        for (HologramType hologramType : types.values()) {
+            if (hologramType.isDue(tick)) {
+                if (!isTypeInUse(hologramType.getName())) {
+                    hologramType.refreshSkipped(tick);
+                } else if (hologramType.isDynamic()) {
+                    refreshType(hologramType);
+                } else {
+                    applyText(hologramType.getName(), hologramType.supply(tick));
+                }
+            }
+        }
+    }
 
-            holograms.forEach((id, hologram) -> {
-                if (hologram.getType().equals(type)) {
-                    hologram.setText(text);
+    /**
+     * Does a type have any holograms that are loaded, or visible when culling
+     * @param type The type to check.
+     * @return If the type is in use
+     */
+    private static boolean isTypeInUse(String type) {
+        for (UUID id : typeIndex.getOrDefault(type, Collections.emptySet())) {
+            HologramData hologram = holograms.get(id);
+            if (hologram != null) {
+                if (isCulling()) {
+                    if (!hologram.viewers.isEmpty()) {
+                        return true;
+                    }
+                } else {
+                    Location location = hologram.location;
+                    if (location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+                        return true;
+                    }
                 }
-            });
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Call the supplier of a dynamic type off the main thread
+     * @param hologramType The type to refresh.
+     */
+    private static void refreshType(HologramType hologramType) {
+        hologramType.refreshStarted(Bukkit.getCurrentTick());
+
+        Executor async = runnable -> Bukkit.getScheduler().runTaskAsynchronously(STEMCraftLib.getInstance(), runnable);
+        CompletableFuture.supplyAsync(hologramType.getAsyncSupplier(), async)
+                .thenCompose(future -> future)
+                .whenComplete((text, throwable) -> {
+                    if (throwable != null) {
+                        STEMCraftLib.log(Level.WARNING, "Failed to refresh the hologram type " + hologramType.getName(), throwable);
+                    }
+
+                    // only the latest result of each type is applied
+                    typeResults.put(hologramType.getName(), text == null || throwable != null ? FAILED_REFRESH : text);
+                    if (typeResultsScheduled.compareAndSet(false, true)) {
+                        Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), SCHologram::applyTypeResults);
+                    }
+                });
+    }
+
+    /**
+     * Apply the completed dynamic type refreshes on the main thread
+     */
+    private static void applyTypeResults() {
+        typeResultsScheduled.set(false);
+
+        for (String type : new ArrayList<>(typeResults.keySet())) {
+            List<String> text = typeResults.remove(type);
+            HologramType hologramType = types.get(type);
+            if (text == null || hologramType == null) {
+                continue;
+            }
+
+            if (text == FAILED_REFRESH) {
+                hologramType.refreshCompleted(null);
+            } else {
+                hologramType.refreshCompleted(text);
+                applyText(type, text);
+            }
         }
     }
 
@@ -282,14 +531,36 @@ public class SCHologram {
      * @return The hologram ID
      */
     public static UUID create(Location location, String type, List<String> text) {
+        return create(location, type, text, HologramRendererType.ARMOR_STAND);
+    }
+
+    /**
+     * Create a new hologram
+     * @param location The location of the hologram
+     * @param type The type of hologram (blank for standard text)
+     * @param text The text of the hologram
+     * @param renderer The rendering backend of the hologram
+     * @return The hologram ID
+     */
+    public static UUID create(Location location, String type, List<String> text, HologramRendererType renderer) {
         UUID id = UUID.randomUUID();
 
-        HologramData data = new HologramData(id, type, location, null, text);
-        holograms.put(id, data);
+        HologramData data = new HologramData(id, type, location.clone(), null, text, renderer);
+        HologramRecord record = data.toRecord();
+        records.put(id, record);
+        index(record);
 
-        data.update();
-        SCHologram.saveAll();
-        return data.getId();
+        if (location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+            // written with its stand IDs by the next save
+            holograms.put(id, data);
+            data.dirty = true;
+            data.update();
+            SCHologram.saveAll();
+        } else {
+            store.put(List.of(record));
+        }
+
+        return id;
     }
 
     /**
@@ -321,19 +592,125 @@ public class SCHologram {
             return;
         }
 
-        AtomicBoolean dirty = new AtomicBoolean(false);
+        if (store == null) {
+            return;
+        }
 
-        holograms.forEach((id, hologram) -> {
-            if(hologram.save()) {
-                dirty.set(true);
+        List<HologramRecord> changed = new ArrayList<>();
+        for (HologramData hologram : holograms.values()) {
+            if (hologram.dirty) {
+                HologramRecord record = hologram.toRecord();
+                records.put(record.id(), record);
+                changed.add(record);
+                hologram.dirty = false;
             }
-        });
+        }
+
+        store.put(changed);
+    }
+
+    /**
+     * Are holograms only shown to nearby players
+     * @return If visibility culling is enabled
+     */
+    public static boolean isCulling() {
+        return viewDistance > 0;
+    }
 
-        if(dirty.get()) {
-            try {
-                config.save(configFile);
-            } catch (IOException e) {
-                STEMCraftLib.log(Level.SEVERE, "Failed to save the holograms configuration file", e);
+    /**
+     * Return the players currently viewing a hologram
+     * @param id The unique ID of the hologram.
+     * @return The players viewing the hologram
+     */
+    public static Set<Player> getViewers(UUID id) {
+        HologramData hologram = holograms.get(id);
+        if (hologram == null) {
+            return Collections.emptySet();
+        }
+
+        return Collections.unmodifiableSet(hologram.viewers);
+    }
+
+    /**
+     * Stop a player viewing any holograms, such as when they leave the server
+     * @param player The player
+     */
+    public static void removeViewer(Player player) {
+        Set<UUID> visible = playerViews.remove(player.getUniqueId());
+        if (visible != null) {
+            for (UUID id : visible) {
+                HologramData hologram = holograms.get(id);
+                if (hologram != null) {
+                    hologram.removeViewer(player);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare the holograms near each player with what they can currently see and queue the changes
+     */
+    private static void updateViewers() {
+        double hideDistanceSquared = (viewDistance + VIEW_MARGIN) * (viewDistance + VIEW_MARGIN);
+        double viewDistanceSquared = viewDistance * viewDistance;
+        List<UUID> nearby = new ArrayList<>();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Location location = player.getLocation();
+            World world = location.getWorld();
+            Set<UUID> visible = playerViews.computeIfAbsent(player.getUniqueId(), k -> new HashSet<>());
+
+            // hide holograms that are now out of range, with a margin so they don't flicker at the edge
+            Iterator<UUID> iterator = visible.iterator();
+            while (iterator.hasNext()) {
+                UUID id = iterator.next();
+                HologramData hologram = holograms.get(id);
+                if (hologram == null) {
+                    // evicted with its chunk, shown again once materialised
+                    iterator.remove();
+                } else if (hologram.location.getWorld() != world || hologram.location.distanceSquared(location) > hideDistanceSquared) {
+                    iterator.remove();
+                    viewQueue.add(new ViewChange(id, player, false));
+                }
+            }
+
+            // show holograms that are now in range
+            double x = location.getX();
+            double y = location.getY();
+            double z = location.getZ();
+
+            nearby.clear();
+            query(world.getName(), null, true,
+                    x - viewDistance, y - viewDistance, z - viewDistance, x + viewDistance, y + viewDistance, z + viewDistance,
+                    record -> holograms.containsKey(record.id()) &&
+                            square(record.x() - x) + square(record.y() - y) + square(record.z() - z) <= viewDistanceSquared,
+                    nearby);
+
+            for (UUID id : nearby) {
+                if (visible.add(id)) {
+                    viewQueue.add(new ViewChange(id, player, true));
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the queued visibility changes, limited to the per tick budget
+     */
+    private static void processViewQueue() {
+        for (int i = 0; i < viewBudget && !viewQueue.isEmpty(); i++) {
+            ViewChange change = viewQueue.poll();
+            HologramData hologram = holograms.get(change.hologram());
+            if (hologram == null) {
+                continue;
+            }
+
+            if (change.show()) {
+                if (change.player().isOnline()) {
+                    hologram.addViewer(change.player());
+                }
+            } else {
+                hologram.removeViewer(change.player());
             }
         }
     }
@@ -344,8 +721,70 @@ public class SCHologram {
      * @param id The unique ID of the hologram.
      */
     public static void delete(UUID id) {
-        if (holograms.containsKey(id)) {
-            holograms.get(id).delete();
+        HologramRecord record = records.remove(id);
+        if (record == null) {
+            return;
+        }
+
+        unindex(record);
+
+        HologramData hologram = holograms.remove(id);
+        if (hologram != null) {
+            hologram.renderer.remove();
+            hologram.viewers.clear();
+        }
+
+        store.delete(id);
+    }
+
+    /**
+     * Move an existing hologram to a new location.
+     *
+     * @param id The unique ID of the hologram.
+     * @param location The new location of the hologram.
+     */
+    public static void move(UUID id, Location location) {
+        HologramRecord record = records.get(id);
+        if (record == null) {
+            return;
+        }
+
+        HologramData hologram = holograms.get(id);
+        if (hologram == null) {
+            hologram = materialise(record);
+            if (hologram == null) {
+                return;
+            }
+        }
+
+        hologram.setLocation(location);
+        SCHologram.saveAll();
+
+        // release it if it was moved into a chunk that isn't loaded
+        if (!location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+            hologram.evict();
+        }
+    }
+
+    /**
+     * Change the rendering backend of an existing hologram.
+     *
+     * @param id The unique ID of the hologram.
+     * @param renderer The rendering backend to use.
+     */
+    public static void setRenderer(UUID id, HologramRendererType renderer) {
+        HologramData hologram = holograms.get(id);
+        if (hologram != null) {
+            hologram.setRendererType(renderer);
+            SCHologram.saveAll();
+        } else {
+            HologramRecord record = records.get(id);
+            if (record != null) {
+                record = new HologramRecord(id, record.type(), record.world(), record.x(), record.y(), record.z(),
+                        renderer.name(), List.of(), record.text());
+                records.put(id, record);
+                store.put(List.of(record));
+            }
         }
     }
 
@@ -357,32 +796,415 @@ public class SCHologram {
      * @return A list of UUIDs found.
      */
     public static List<UUID> find(Location location, String type, int range) {
-        int rangeSquared = range * range;
+        List<UUID> results = new ArrayList<>();
+        find(location, type, range, results);
+        return results;
+    }
+
+    /**
+     * Add the holograms within a range from a location to a collection
+     * @param location The starting location to search from.
+     * @param type The type of holograms to search for.
+     * @param range The distance from the location to include.
+     * @param results The collection to add the UUIDs found to.
+     * @return The number of holograms added.
+     */
+    public static int find(Location location, String type, double range, Collection<UUID> results) {
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        double rangeSquared = range * range;
 
-        return holograms.values().stream()
-                .filter(hologramData -> {
-                    Location targetLocation = hologramData.getLocation();
+        return query(location.getWorld().getName(), type, false,
+                x - range, y - range, z - range, x + range, y + range, z + range,
+                record -> square(record.x() - x) + square(record.y() - y) + square(record.z() - z) <= rangeSquared,
+                results);
+    }
 
-                    // Check if worlds match, distance is within range, and type matches
-                    return targetLocation.getWorld().equals(location.getWorld()) &&
-                            targetLocation.distanceSquared(location) <= rangeSquared &&
-                            hologramData.getType().equals(type); // New type check
-                })
-                .map(HologramData::getId)
-                .collect(Collectors.toList());
+    /**
+     * Add the holograms within a box to a collection
+     * @param world The world to search.
+     * @param type The type of holograms to search for.
+     * @param min The minimum corner of the box.
+     * @param max The maximum corner of the box.
+     * @param results The collection to add the UUIDs found to.
+     * @return The number of holograms added.
+     */
+    public static int findInBox(World world, String type, Location min, Location max, Collection<UUID> results) {
+        return query(world.getName(), type, false,
+                Math.min(min.getX(), max.getX()), Math.min(min.getY(), max.getY()), Math.min(min.getZ(), max.getZ()),
+                Math.max(min.getX(), max.getX()), Math.max(min.getY(), max.getY()), Math.max(min.getZ(), max.getZ()),
+                null, results);
     }
 
     /**
-     * Update the holograms in a specified chunk
+     * Return the holograms within a box
+     * @param world The world to search.
+     * @param type The type of holograms to search for.
+     * @param min The minimum corner of the box.
+     * @param max The maximum corner of the box.
+     * @return A list of UUIDs found.
+     */
+    public static List<UUID> findInBox(World world, String type, Location min, Location max) {
+        List<UUID> results = new ArrayList<>();
+        findInBox(world, type, min, max, results);
+        return results;
+    }
+
+    /**
+     * Query the chunk index for holograms within a box. Only the chunk buckets overlapping
+     * the box are visited, or the type bucket when it holds fewer holograms than that.
+     *
+     * @param worldName The world to search.
+     * @param type The type of holograms to match.
+     * @param anyType Match holograms of any type.
+     * @param filter An optional extra test for holograms inside the box.
+     * @param results The collection to add the UUIDs found to.
+     * @return The number of holograms added.
+     */
+    private static int query(String worldName, String type, boolean anyType, double minX, double minY, double minZ,
+                             double maxX, double maxY, double maxZ, Predicate<HologramRecord> filter, Collection<UUID> results) {
+        Map<Long, Set<UUID>> chunks = chunkIndex.get(worldName);
+        if(chunks == null) {
+            return 0;
+        }
+
+        String matchType = (type == null || type.isEmpty()) ? null : type;
+        int minChunkX = (int) Math.floor(minX) >> 4;
+        int minChunkZ = (int) Math.floor(minZ) >> 4;
+        int maxChunkX = (int) Math.floor(maxX) >> 4;
+        int maxChunkZ = (int) Math.floor(maxZ) >> 4;
+        long cells = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+        int count = 0;
+
+        Set<UUID> typed = typeIndex.getOrDefault(matchType == null ? "" : matchType, Collections.emptySet());
+        if(!anyType && typed.size() < cells && typed.size() < chunks.size()) {
+            for(UUID id : typed) {
+                count += test(records.get(id), worldName, matchType, anyType, minX, minY, minZ, maxX, maxY, maxZ, filter, results);
+            }
+
+            return count;
+        }
+
+        if(cells <= chunks.size()) {
+            for(int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for(int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    Set<UUID> ids = chunks.get(Chunk.getChunkKey(chunkX, chunkZ));
+                    if(ids != null) {
+                        for(UUID id : ids) {
+                            count += test(records.get(id), worldName, matchType, anyType, minX, minY, minZ, maxX, maxY, maxZ, filter, results);
+                        }
+                    }
+                }
+            }
+        } else {
+            for(Map.Entry<Long, Set<UUID>> entry : chunks.entrySet()) {
+                long key = entry.getKey();
+                int chunkX = (int) key;
+                int chunkZ = (int) (key >> 32);
+
+                if(chunkX >= minChunkX && chunkX <= maxChunkX && chunkZ >= minChunkZ && chunkZ <= maxChunkZ) {
+                    for(UUID id : entry.getValue()) {
+                        count += test(records.get(id), worldName, matchType, anyType, minX, minY, minZ, maxX, maxY, maxZ, filter, results);
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Test a single hologram against a query, adding it to the results if it matches
+     * @return 1 if the hologram was added, otherwise 0.
+     */
+    private static int test(HologramRecord record, String worldName, String type, boolean anyType, double minX, double minY, double minZ,
+                            double maxX, double maxY, double maxZ, Predicate<HologramRecord> filter, Collection<UUID> results) {
+        if(record == null || (!anyType && !Objects.equals(record.type(), type))) {
+            return 0;
+        }
+
+        if(record.x() < minX || record.x() > maxX ||
+                record.y() < minY || record.y() > maxY ||
+                record.z() < minZ || record.z() > maxZ ||
+                !record.world().equals(worldName)) {
+            return 0;
+        }
+
+        if(filter != null && !filter.test(record)) {
+            return 0;
+        }
+
+        results.add(record.id());
+        return 1;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    /**
+     * Update the holograms in a specified chunk, materialising them if required
      * @param chunk The chunk to update.
      */
     public static void updateChunk(Chunk chunk) {
-        if(chunk.isLoaded()) {
-            holograms.forEach((id, hologram) -> {
-                if(hologram.location.getChunk().equals(chunk)) {
-                    hologram.update();
+        loadChunk(chunk.getWorld(), chunk.getChunkKey());
+    }
+
+    /**
+     * Update the holograms in a batch of loaded chunks
+     * @param chunks The chunks to update.
+     */
+    public static void updateChunks(List<Chunk> chunks) {
+        if(chunkIndex.isEmpty()) {
+            return;
+        }
+
+        for(Chunk chunk : chunks) {
+            loadChunk(chunk.getWorld(), chunk.getChunkKey());
+        }
+    }
+
+    /**
+     * Match the hologram stands in a chunk whose entities have loaded against the known holograms. Stands
+     * are adopted by their hologram, while stands for deleted or moved holograms are removed.
+     * @param chunk The chunk.
+     * @param entities The entities loaded in the chunk.
+     */
+    public static void reconcileEntities(Chunk chunk, List<Entity> entities) {
+        World world = chunk.getWorld();
+        long key = chunk.getChunkKey();
+        Set<UUID> ids = chunkIds(world.getName(), key);
+
+        // stands saved before they were tagged are matched by their persisted ID
+        Map<UUID, UUID> legacy = new HashMap<>();
+        if(ids != null) {
+            for(UUID id : ids) {
+                HologramData hologram = holograms.get(id);
+                HologramRecord record = records.get(id);
+                List<UUID> standIds = hologram != null ? hologram.standIds : record != null ? record.standIds() : List.of();
+                for(UUID standId : standIds) {
+                    legacy.put(standId, id);
+                }
+            }
+        }
+
+        Map<UUID, List<Entity>> owned = new HashMap<>();
+        for(Entity entity : entities) {
+            UUID owner = HologramTag.getOwner(entity);
+            if(owner == null) {
+                owner = legacy.get(entity.getUniqueId());
+            }
+
+            if(owner != null) {
+                owned.computeIfAbsent(owner, k -> new ArrayList<>()).add(entity);
+            }
+        }
+
+        for(Map.Entry<UUID, List<Entity>> entry : owned.entrySet()) {
+            UUID owner = entry.getKey();
+            List<Entity> stands = entry.getValue();
+
+            HologramData hologram = null;
+            if(ids != null && ids.contains(owner)) {
+                hologram = holograms.get(owner);
+                if(hologram == null) {
+                    hologram = materialise(records.get(owner));
+                }
+            }
+
+            if(hologram == null) {
+                stands.forEach(Entity::remove);
+                standsCulled += stands.size();
+                continue;
+            }
+
+            int adopted = hologram.adopt(stands);
+            standsAdopted += adopted;
+            standsCulled += stands.size() - adopted;
+        }
+
+        loadChunk(world, key);
+    }
+
+    /**
+     * Return the number of existing stands adopted by their hologram
+     * @return The number of adopted stands.
+     */
+    public static long getAdoptedCount() {
+        return standsAdopted;
+    }
+
+    /**
+     * Return the number of orphaned or unneeded stands removed from the world
+     * @return The number of removed stands.
+     */
+    public static long getCulledCount() {
+        return standsCulled;
+    }
+
+    /**
+     * Release the holograms in a chunk that is unloading, leaving their persistent stands in the chunk
+     * @param chunk The chunk being unloaded.
+     */
+    public static void unloadChunk(Chunk chunk) {
+        Set<UUID> ids = chunkIds(chunk.getWorld().getName(), chunk.getChunkKey());
+        if(ids == null) {
+            return;
+        }
+
+        for(UUID id : ids) {
+            HologramData hologram = holograms.get(id);
+            if(hologram != null) {
+                hologram.evict();
+            }
+        }
+    }
+
+    /**
+     * Release the holograms in a world that is unloading
+     * @param world The world being unloaded.
+     */
+    public static void unloadWorld(World world) {
+        String worldName = world.getName();
+        for(HologramData hologram : new ArrayList<>(holograms.values())) {
+            if(hologram.location.getWorld().getName().equals(worldName)) {
+                hologram.evict();
+            }
+        }
+    }
+
+    /**
+     * Return the number of holograms materialised in loaded chunks
+     * @return The number of loaded holograms.
+     */
+    public static int getLoadedCount() {
+        return holograms.size();
+    }
+
+    /**
+     * Return the total number of holograms
+     * @return The number of holograms.
+     */
+    public static int getCount() {
+        return records.size();
+    }
+
+    /**
+     * Materialise and update the holograms of a loaded chunk
+     * @param world The world of the chunk.
+     * @param key The chunk key.
+     */
+    private static void loadChunk(World world, long key) {
+        Set<UUID> ids = chunkIds(world.getName(), key);
+        if(ids == null) {
+            return;
+        }
+
+        for(UUID id : ids) {
+            HologramData hologram = holograms.get(id);
+            if(hologram == null) {
+                hologram = materialise(records.get(id));
+            }
+
+            if(hologram != null) {
+                hologram.update();
+            }
+        }
+    }
+
+    /**
+     * Return the IDs of the holograms in a chunk
+     * @param worldName The world name.
+     * @param key The chunk key.
+     * @return The hologram IDs or NULL
+     */
+    private static Set<UUID> chunkIds(String worldName, long key) {
+        Map<Long, Set<UUID>> chunks = chunkIndex.get(worldName);
+        if(chunks == null) {
+            return null;
+        }
+
+        return chunks.get(key);
+    }
+
+    /**
+     * Build the full hologram data from its record
+     * @param record The hologram record.
+     * @return The hologram data, or NULL if its world isn't loaded
+     */
+    private static HologramData materialise(HologramRecord record) {
+        if(record == null) {
+            return null;
+        }
+
+        World world = Bukkit.getWorld(record.world());
+        if(world == null) {
+            return null;
+        }
+
+        HologramData hologram = new HologramData(record.id(), record.type(),
+                new Location(world, record.x(), record.y(), record.z()),
+                new ArrayList<>(record.standIds()), new ArrayList<>(record.text()),
+                HologramRendererType.fromString(record.renderer()));
+        holograms.put(record.id(), hologram);
+        return hologram;
+    }
+
+    /**
+     * Return the packed chunk key of a position without loading the chunk
+     * @param x The X coordinate.
+     * @param z The Z coordinate.
+     * @return The packed chunk key.
+     */
+    static long chunkKey(double x, double z) {
+        return Chunk.getChunkKey((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4);
+    }
+
+    /**
+     * Add a hologram to the chunk and type indexes
+     * @param record The hologram to add.
+     */
+    private static void index(HologramRecord record) {
+        typeIndex.computeIfAbsent(record.type() == null ? "" : record.type(), k -> new HashSet<>()).add(record.id());
+        chunkIndex.computeIfAbsent(record.world(), k -> new HashMap<>())
+                .computeIfAbsent(chunkKey(record.x(), record.z()), k -> new HashSet<>())
+                .add(record.id());
+    }
+
+    /**
+     * Remove a hologram from the chunk and type indexes
+     * @param record The hologram to remove.
+     */
+    private static void unindex(HologramRecord record) {
+        if(record == null) {
+            return;
+        }
+
+        String typeKey = record.type() == null ? "" : record.type();
+        Set<UUID> typed = typeIndex.get(typeKey);
+        if(typed != null) {
+            typed.remove(record.id());
+            if(typed.isEmpty()) {
+                typeIndex.remove(typeKey);
+            }
+        }
+
+        Map<Long, Set<UUID>> chunks = chunkIndex.get(record.world());
+        if(chunks == null) {
+            return;
+        }
+
+        long key = chunkKey(record.x(), record.z());
+        Set<UUID> ids = chunks.get(key);
+        if(ids != null) {
+            ids.remove(record.id());
+            if(ids.isEmpty()) {
+                chunks.remove(key);
+                if(chunks.isEmpty()) {
+                    chunkIndex.remove(record.world());
                 }
-            });
+            }
         }
     }
 }
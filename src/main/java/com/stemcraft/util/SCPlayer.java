@@ -104,6 +104,23 @@ public class SCPlayer {
         return future;
     }
 
+    /**
+     * Safely teleport the player to their last location in a world, loading the world first if it
+     * is not loaded (such as when it has been parked while idle)
+     * @param player The player to teleport
+     * @param worldName The world to teleport the player to
+     * @return A future completing with if the player was teleported
+     */
+    public static CompletableFuture<Boolean> teleport(Player player, String worldName) {
+        return SCWorld.loadAsync(worldName).thenCompose(world -> {
+            if (world == null || !player.isOnline()) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            return teleport(player, SCWorld.getLastLocation(world, player)).thenApply(v -> true);
+        });
+    }
+
     /**
      * Safely teleport the player to a location
      * @param player The player to teleport
@@ -2,39 +2,70 @@ package com.stemcraft.util;
 
 import com.stemcraft.STEMCraftLib;
 import com.stemcraft.event.WorldDeleteEvent;
+import com.stemcraft.exception.InvalidWorldGeneratorException;
 import com.stemcraft.exception.MainWorldDeletionException;
 import com.stemcraft.exception.MainWorldUnloadException;
+import com.stemcraft.world.ChunkPrewarmer;
+import com.stemcraft.world.GeneratorRegistry;
+import com.stemcraft.world.IdleWorldMonitor;
+import com.stemcraft.world.LastLocationStore;
+import com.stemcraft.world.RealmRegistry;
+import com.stemcraft.world.RegionScanner;
+import com.stemcraft.world.WorldConfigWriter;
+import com.stemcraft.world.WorldCopier;
+import com.stemcraft.world.WorldDeleter;
+import com.stemcraft.world.WorldRegistry;
+import net.kyori.adventure.util.TriState;
 import org.bukkit.*;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.generator.ChunkGenerator;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 public class SCWorld {
-    private static final List<String> unloadingList = new ArrayList<>();
+    private static final Set<String> unloadingList = ConcurrentHashMap.newKeySet();
+    private static final Map<String, CompletableFuture<WorldStatus>> pendingUnloads = new HashMap<>();
+    private static final Map<String, CompletableFuture<World>> pendingLoads = new HashMap<>();
+    private static final Set<String> startupLoads = new LinkedHashSet<>();
+    private static final Set<String> copyingList = new HashSet<>();
     private static File configFile;
     private static YamlConfiguration config;
+    private static WorldConfigWriter configWriter = null;
+    private static LastLocationStore lastLocations = null;
+    private static BukkitTask lastLocationTask = null;
 
     public enum WorldStatus {
         UNLOADING_WORLD,
         UNLOADED_WORLD,
+        UNLOAD_FAILED,
         WORLD_NOT_LOADED,
         DELETING_WORLD,
-        DELETED_WORLD
+        DELETED_WORLD,
+        COPYING_WORLD,
+        COPIED_WORLD,
+        COPY_FAILED,
+        DELETE_FAILED
     }
 
     public interface WorldStatusCallback {
         void onStatusUpdate(WorldStatus status); // Called with status updates
     }
 
+    public interface WorldProgressCallback {
+        void onProgress(long bytesDone, long bytesTotal); // Called as data is processed
+    }
+
     public static void init() {
         configFile = new File(STEMCraftLib.getInstance().getDataFolder(), "worlds.yml");
         if (!configFile.exists()) {
@@ -47,86 +78,203 @@ public class SCWorld {
         }
 
         config = YamlConfiguration.loadConfiguration(configFile);
+        if (configWriter != null) {
+            configWriter.close();
+        }
+
+        long saveDelay = STEMCraftLib.getInstance().getConfig().getLong("world-config.save-delay", 40);
+        configWriter = new WorldConfigWriter(configFile.toPath(), config, saveDelay);
+
+        if (lastLocations != null) {
+            lastLocations.close();
+        }
+
+        lastLocations = new LastLocationStore(STEMCraftLib.getInstance().getDataFolder());
+        lastLocations.load();
+        migrateLastLocations();
+
+        if (lastLocationTask != null) {
+            lastLocationTask.cancel();
+        }
+
+        long flushInterval = Math.max(1, STEMCraftLib.getInstance().getConfig().getLong("last-locations.flush-interval", 100));
+        lastLocationTask = Bukkit.getScheduler().runTaskTimer(STEMCraftLib.getInstance(), lastLocations::flush, flushInterval, flushInterval);
 
-        // load worlds that are set to autoload
         ConfigurationSection worlds = config.getConfigurationSection("worlds");
         if(worlds != null) {
+            // load worlds that are set to autoload
             for (String worldName : worlds.getKeys(false)) {
                 if (config.getBoolean("worlds." + worldName + ".autoload", false)) {
-                    load(worldName);
+                    startupLoads.add(worldName);
                 }
             }
         }
+
+        RealmRegistry.init();
+        for (World world : Bukkit.getWorlds()) {
+            RealmRegistry.add(world, config.getString("worlds." + world.getName() + ".realm"));
+        }
+
+        autoLoadWorlds();
+        IdleWorldMonitor.init();
     }
 
     /**
-     * Save the world configuration files.
+     * Queue a world to be loaded when the worlds are initialized
+     *
+     * @param name The world name
      */
-    public static void saveConfig() {
-        try {
-            config.save(configFile);
-        } catch (IOException e) {
-            STEMCraftLib.log(Level.SEVERE, "Failed to save world configuration files", e);
-        }
+    public static void queueStartupLoad(String name) {
+        startupLoads.add(name);
     }
 
     /**
-     * Are worlds part of the same realm?
-     *
-     * @param worldA World A to test
-     * @param worldB World B to test
-     * @return If both world names are in the same realm
+     * Load the worlds queued to load at startup, highest priority first. Critical worlds are created
+     * now, before players can join, and the rest are deferred and created one per tick once the server
+     * is running. Spawn chunks are loaded in the background while the next world is created.
      */
-    public static boolean sameRealm(World worldA, World worldB) {
-        String worldAName = worldA.getName().toLowerCase();
-        String worldBName = worldB.getName().toLowerCase();
+    private static void autoLoadWorlds() {
+        boolean defer = STEMCraftLib.getInstance().getConfig().getBoolean("world-load.defer-autoload", true);
 
-        if (worldAName.equals(worldBName)) {
-            return true;
+        List<String> names = new ArrayList<>();
+        for (String name : startupLoads) {
+            if (exists(name) && !isLoaded(name)) {
+                names.add(name);
+            }
         }
 
-        return worldAName.replace("_nether", "").replace("_the_end", "").equals(
-                worldBName.replace("_nether", "").replace("_the_end", "")
-        );
+        startupLoads.clear();
+        names.sort(Comparator.comparingInt((String name) -> config.getInt("worlds." + name + ".priority", 0)).reversed());
+
+        long deferred = 0;
+        for (String name : names) {
+            if (!defer || config.getBoolean("worlds." + name + ".critical", false)) {
+                loadAsync(name, -1);
+            } else {
+                loadAsync(name, ++deferred);
+            }
+        }
+
+        if (!names.isEmpty()) {
+            STEMCraftLib.log("Autoloading {count} worlds, {deferred} deferred until the server has started",
+                    "count", String.valueOf(names.size()), "deferred", String.valueOf(deferred));
+        }
     }
 
     /**
-     * Get the world folder
-     * @param worldName The world name
-     * @return A File object to the world folder
+     * Save the world configuration files now, waiting for the write to complete.
      */
-    private static File getWorldFolder(String worldName) {
-        return new File(Bukkit.getWorldContainer(), worldName);
+    public static void saveConfig() {
+        if (configWriter != null) {
+            configWriter.markAllDirty();
+            configWriter.flush();
+        }
     }
 
     /**
-     * Get the world region folder
-     * @param worldName The world name
-     * @return A File object to the world region folder
+     * Save the world configuration files and stop writing them.
      */
-    private static File getWorldRegionFolder(String worldName) {
-        File mainFolder = getWorldFolder(worldName);
+    public static void shutdown() {
+        if (configWriter != null) {
+            configWriter.close();
+            configWriter = null;
+        }
 
-        // Overworld
-        File tmp = new File(mainFolder, "region");
-        if (tmp.exists()) {
-            return tmp;
+        if (lastLocationTask != null) {
+            lastLocationTask.cancel();
+            lastLocationTask = null;
         }
 
-        // Nether
-        tmp = new File(mainFolder, "DIM-1" + File.separator + "region");
-        if (tmp.exists()) {
-            return tmp;
+        if (lastLocations != null) {
+            lastLocations.close();
+            lastLocations = null;
         }
+    }
 
-        // The End
-        tmp = new File(mainFolder, "DIM1" + File.separator + "region");
-        if (tmp.exists()) {
-            return tmp;
+    /**
+     * Move the last locations held in the world configuration into the last location store.
+     */
+    private static void migrateLastLocations() {
+        ConfigurationSection worlds = config.getConfigurationSection("worlds");
+        if (worlds == null) {
+            return;
         }
 
-        // Unknown???
-        return null;
+        int migrated = 0;
+        for (String worldName : worlds.getKeys(false)) {
+            ConfigurationSection players = worlds.getConfigurationSection(worldName + ".players");
+            if (players == null) {
+                continue;
+            }
+
+            for (String uuid : players.getKeys(false)) {
+                String lastLocation = players.getString(uuid + ".last-location");
+                if (lastLocation == null) {
+                    continue;
+                }
+
+                try {
+                    String[] data = lastLocation.split(",");
+                    lastLocations.put(UUID.fromString(uuid), worldName, Double.parseDouble(data[0]),
+                            Double.parseDouble(data[1]), Double.parseDouble(data[2]),
+                            data.length > 3 ? Float.parseFloat(data[3]) : 0.0f,
+                            data.length > 4 ? Float.parseFloat(data[4]) : 0.0f);
+                    migrated++;
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    STEMCraftLib.log(Level.WARNING, "Skipping invalid last location for " + uuid + " in world " + worldName);
+                }
+            }
+
+            worlds.set(worldName + ".players", null);
+            markDirty(worldName);
+        }
+
+        if (migrated > 0) {
+            // write the records before worlds.yml drops the old entries
+            lastLocations.flush();
+            STEMCraftLib.log("Migrated {count} player last locations from worlds.yml", "count", String.valueOf(migrated));
+        }
+    }
+
+    /**
+     * Mark the configuration of a world as changed, to be saved in the background shortly.
+     *
+     * @param name The world name
+     */
+    private static void markDirty(String name) {
+        if (configWriter != null) {
+            configWriter.markDirty(name);
+        }
+    }
+
+    /**
+     * Are worlds part of the same realm?
+     *
+     * @param worldA World A to test
+     * @param worldB World B to test
+     * @return If both worlds are in the same realm
+     */
+    public static boolean sameRealm(World worldA, World worldB) {
+        return RealmRegistry.sameRealm(worldA, worldB);
+    }
+
+    /**
+     * Get the loaded worlds in the same realm as a world, including the world.
+     *
+     * @param world The world to lookup
+     * @return The worlds in the realm
+     */
+    public static Collection<World> getRealmWorlds(World world) {
+        return RealmRegistry.getWorlds(RealmRegistry.getRealm(world));
+    }
+
+    /**
+     * Get the world folder
+     * @param worldName The world name
+     * @return A File object to the world folder
+     */
+    private static File getWorldFolder(String worldName) {
+        return new File(Bukkit.getWorldContainer(), worldName);
     }
 
     /**
@@ -135,13 +283,16 @@ public class SCWorld {
      * @return If the world exists
      */
     public static boolean exists(String name) {
-        for(World world : Bukkit.getWorlds()) {
-            if(world.getName().equals(name)) {
-                return true;
-            }
-        }
+        return WorldRegistry.exists(name);
+    }
 
-        return isLoadable(name);
+    /**
+     * Is a world registered in worlds.yml, rather than only being loaded by the server or another plugin
+     * @param name The world name
+     * @return If the world is managed by this library
+     */
+    public static boolean isManaged(String name) {
+        return config != null && config.isConfigurationSection("worlds." + name);
     }
 
     /**
@@ -149,48 +300,29 @@ public class SCWorld {
      * @return A list of world names
      */
     public static Collection<String> list() {
-        String[] subDirs = Bukkit.getWorldContainer().list();
-        assert subDirs != null;
-        Collection<String> list = new ArrayList<>(subDirs.length);
-        for (String name : subDirs) {
-            if (isLoadable(name)) {
-                list.add(name);
-            }
-        }
-        return list;
+        return WorldRegistry.list();
     }
 
     /**
-     * Check if a world is loadable (valid)
+     * Scan the region files of a world in the background, without loading the world. Reports the
+     * chunk counts, sizes and compression types, and any chunks that cannot be read.
      * @param name The world name
-     * @return If the world is loadable
+     * @return A future completing off the main thread with the scan result, or NULL if the world does not exist
      */
-    private static boolean isLoadable(String name) {
-        for(World world : Bukkit.getWorlds()) {
-            if(world.getName().equals(name)) {
-                return true;
-            }
+    public static CompletableFuture<RegionScanner.ScanResult> scanRegions(String name) {
+        if (!exists(name)) {
+            return CompletableFuture.completedFuture(null);
         }
 
-        File worldFolder = getWorldFolder(name);
-        if (!worldFolder.isDirectory()) {
-            return false;
-        }
-
-        if (new File(worldFolder, "level.dat").exists()) {
-            return true;
-        }
-
-        File regionFolder = getWorldRegionFolder(name);
-        if (regionFolder != null) {
-            for (String fileName : Objects.requireNonNull(regionFolder.list())) {
-                if (fileName.toLowerCase(Locale.ENGLISH).endsWith(".mca")) {
-                    return true;
-                }
-            }
-        }
+        return RegionScanner.scan(name);
+    }
 
-        return false;
+    /**
+     * Return a list of worlds on the server that are not loaded
+     * @return A list of world names
+     */
+    public static List<String> listUnloaded() {
+        return WorldRegistry.listUnloaded();
     }
 
     /**
@@ -200,13 +332,7 @@ public class SCWorld {
      * @return If the world is loaded
      */
     public static boolean isLoaded(String name) {
-        for(World world : Bukkit.getWorlds()) {
-            if(world.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return WorldRegistry.isLoaded(name);
     }
 
     /**
@@ -226,8 +352,8 @@ public class SCWorld {
 
             if(!isUnloading(name)) {
                 STEMCraftLib.log("using worldcreator for world {name}", "name", name);
-                WorldCreator creator = new WorldCreator(name);
-                return Bukkit.createWorld(creator);
+                WorldCreator creator = worldCreator(name);
+                return creator == null ? null : Bukkit.createWorld(creator);
             } else {
                 STEMCraftLib.log("could not load world {name} as its unloading", "name", name);
                 return null;
@@ -238,6 +364,115 @@ public class SCWorld {
         return null;
     }
 
+    /**
+     * Return a world creator for an existing world, using the generator the world was created with.
+     *
+     * @param name The world name
+     * @return The world creator, or NULL if the generator of the world is not installed
+     */
+    private static WorldCreator worldCreator(String name) {
+        WorldCreator creator = new WorldCreator(name);
+        String generator = generator(name);
+        if(generator != null) {
+            if(!GeneratorRegistry.exists(generator)) {
+                STEMCraftLib.log(Level.SEVERE, "Could not load world " + name + " as its generator " + generator + " is not installed");
+                return null;
+            }
+
+            try {
+                creator.generator(GeneratorRegistry.create(name, generator));
+            } catch (InvalidWorldGeneratorException e) {
+                return null;
+            }
+        }
+
+        return creator;
+    }
+
+    /**
+     * Load a world from disk without generating the spawn area on the main thread. The chunks around
+     * spawn are then loaded with the asynchronous chunk API, up to the configured radius.
+     *
+     * @param name The world name
+     * @return A future completing on the main thread with the world, or NULL if it could not be loaded
+     */
+    public static CompletableFuture<World> loadAsync(String name) {
+        return loadAsync(name, 0);
+    }
+
+    /**
+     * Load a world from disk, creating it after a delay or at once.
+     *
+     * @param name The world name
+     * @param delay The ticks before the world is created, or less than 0 to create it now
+     * @return A future completing on the main thread with the world, or NULL if it could not be loaded
+     */
+    private static CompletableFuture<World> loadAsync(String name, long delay) {
+        World world = Bukkit.getWorld(name);
+        if(world != null) {
+            return CompletableFuture.completedFuture(world);
+        }
+
+        if(!exists(name) || isUnloading(name)) {
+            STEMCraftLib.log("could not load world {name}", "name", name);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<World> pending = pendingLoads.get(name);
+        if(pending != null) {
+            return pending;
+        }
+
+        CompletableFuture<World> result = new CompletableFuture<>();
+        pendingLoads.put(name, result);
+
+        Runnable create = () -> {
+            long start = System.nanoTime();
+            FileConfiguration settings = STEMCraftLib.getInstance().getConfig();
+            int radius = settings.getInt("world-load.prewarm-radius", 2);
+            int maxInFlight = settings.getInt("world-load.prewarm-concurrency", 16);
+
+            // the prewarmed chunks are held with plugin tickets in place of the vanilla spawn chunks
+            WorldCreator creator = worldCreator(name);
+            if(creator != null && radius >= 0) {
+                creator.keepSpawnLoaded(TriState.FALSE);
+            }
+
+            World loaded = creator == null ? null : Bukkit.createWorld(creator);
+            if(loaded == null) {
+                pendingLoads.remove(name);
+                STEMCraftLib.log("could not load world {name}", "name", name);
+                result.complete(null);
+                return;
+            }
+
+            // critical worlds are created during startup, so do not rely on the WorldLoadEvent
+            WorldRegistry.loaded(name);
+            worldLoaded(loaded);
+
+            long created = System.nanoTime();
+            Location spawn = loaded.getSpawnLocation();
+
+            ChunkPrewarmer.prewarm(loaded, spawn.getBlockX() >> 4, spawn.getBlockZ() >> 4, radius, maxInFlight)
+                    .whenComplete((chunks, throwable) -> {
+                        pendingLoads.remove(name);
+                        STEMCraftLib.log("Loaded world {name} in {ms}ms, {chunks} spawn chunks ready after {total}ms", "name", name,
+                                "ms", String.valueOf((created - start) / 1_000_000),
+                                "chunks", String.valueOf(chunks == null ? 0 : chunks),
+                                "total", String.valueOf((System.nanoTime() - start) / 1_000_000));
+                        result.complete(loaded);
+                    });
+        };
+
+        if(delay < 0) {
+            create.run();
+        } else {
+            Bukkit.getScheduler().runTaskLater(STEMCraftLib.getInstance(), create, delay);
+        }
+
+        return result;
+    }
+
     /**
      * Get/Set the autoload setting for a world.
      *
@@ -247,7 +482,7 @@ public class SCWorld {
     public static boolean autoLoad(String name, Boolean autoLoad) {
         if(autoLoad != null) {
             config.set("worlds." + name + ".autoload", autoLoad);
-            saveConfig();
+            markDirty(name);
         }
 
         return config.getBoolean("worlds." + name + ".autoload", false);
@@ -290,6 +525,9 @@ public class SCWorld {
             if(settings != null) c.generatorSettings(settings);
             if(seed != null) c.seed(seed);
             world = c.createWorld();
+            if(world != null) {
+                WorldRegistry.loaded(name);
+            }
 
             return world;
         }
@@ -300,34 +538,24 @@ public class SCWorld {
     /**
      * Create a new world
      * @param name The name of the world
-     * @param generatorName The chunk generator name
+     * @param generatorName The chunk generator id, optionally followed by /id
      * @param settings The generator settings
      * @param seed The generator seed
      * @return  The created world
+     * @throws InvalidWorldGeneratorException If the generator is not installed
      */
     public static World create(String name, String generatorName, String settings, Long seed) {
         ChunkGenerator chunkGenerator = null;
-
         if (generatorName != null) {
-            for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
-                try {
-                    // Attempt to fetch a generator from each plugin
-                    ChunkGenerator generator = plugin.getDefaultWorldGenerator(name, generatorName);
-                    if (generator != null) {
-                        chunkGenerator = generator;
-                        break; // Stop once we find a valid generator
-                    }
-                } catch (Exception ignored) {
-                    // Ignore any exceptions from plugins that don't support generators
-                }
-            }
+            chunkGenerator = GeneratorRegistry.create(name, generatorName);
+        }
 
-            if (chunkGenerator == null) {
-                throw new IllegalArgumentException("No valid generator found for name: " + generatorName);
-            }
+        World world = create(name, chunkGenerator, settings, seed);
+        if (world != null && generatorName != null) {
+            generator(name, generatorName);
         }
 
-        return create(name, chunkGenerator, settings, seed);
+        return world;
     }
 
     /**
@@ -347,54 +575,94 @@ public class SCWorld {
      * @param statusCallback Callback on progress
      */
     public static void unload(World world, Boolean save, WorldStatusCallback statusCallback) {
-        BukkitRunnable task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if(!Bukkit.getWorlds().contains(world)) {
-                    this.cancel();
-
-                    Bukkit.getScheduler().runTaskLater(STEMCraftLib.getInstance(), () -> {
-                        STEMCraftLib.log("Unloaded world {name}", "name", world.getName());
-                        unloadingList.remove(world.getName());
-                    }, 20L);
-
-                    if(statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.UNLOADED_WORLD);
-                }
+        if(world != null && statusCallback != null) {
+            if(Bukkit.getWorlds().getFirst() == world) {
+                throw new MainWorldUnloadException();
             }
-        };
 
-        if(world != null) {
-            if(!unloadingList.contains(world.getName())) {
-                if (Bukkit.getWorlds().getFirst() != world) {
-                    if(statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.UNLOADING_WORLD);
+            statusCallback.onStatusUpdate(WorldStatus.UNLOADING_WORLD);
+        }
+
+        unload(world, save != null && save).thenAccept(status -> {
+            if(statusCallback != null) statusCallback.onStatusUpdate(status);
+        });
+    }
+
+    /**
+     * Safely unload a world, teleporting the players back to the default world. Requests to unload a
+     * world that is already unloading share the same result.
+     *
+     * @param world The world to unload
+     * @param save Save the world on unload
+     * @return A future completing on the main thread with UNLOADED_WORLD, UNLOAD_FAILED or WORLD_NOT_LOADED
+     */
+    public static CompletableFuture<WorldStatus> unload(World world, boolean save) {
+        if(world == null || !Bukkit.getWorlds().contains(world)) {
+            return CompletableFuture.completedFuture(WorldStatus.WORLD_NOT_LOADED);
+        }
 
-                    String name = world.getName();
-                    unloadingList.add(name);
+        if(Bukkit.getWorlds().getFirst() == world) {
+            throw new MainWorldUnloadException();
+        }
 
-                    STEMCraftLib.log("Unloading world {name}", "name", name);
+        String name = world.getName();
+        CompletableFuture<WorldStatus> pending = pendingUnloads.get(name);
+        if(pending != null) {
+            return pending;
+        }
 
-                    CompletableFuture<Void> teleportTasks = CompletableFuture.allOf(
-                            world.getPlayers().stream().map(player -> {
-                                STEMCraftLib.warning(player, "World '{name}' is being unloaded, teleporting to main world", "name", name);
-                                return SCPlayer.teleport(player, Bukkit.getWorlds().getFirst().getSpawnLocation());
-                            }).toArray(CompletableFuture[]::new)
-                    );
+        CompletableFuture<WorldStatus> result = new CompletableFuture<>();
+        pendingUnloads.put(name, result);
+        unloadingList.add(name);
 
-                    teleportTasks.thenRun(() -> Bukkit.getScheduler().runTaskLater(STEMCraftLib.getInstance(), () -> {
-                        Bukkit.unloadWorld(world, save);
+        STEMCraftLib.log("Unloading world {name}", "name", name);
 
-                        task.runTaskTimer(STEMCraftLib.getInstance(), 10L, 10L);
-                    }, 20L));
-                } else {
-                    throw new MainWorldUnloadException();
-                }
+        CompletableFuture<Void> teleportTasks = CompletableFuture.allOf(
+                world.getPlayers().stream().map(player -> {
+                    STEMCraftLib.warning(player, "World '{name}' is being unloaded, teleporting to main world", "name", name);
+                    return SCPlayer.teleport(player, Bukkit.getWorlds().getFirst().getSpawnLocation());
+                }).toArray(CompletableFuture[]::new)
+        );
+
+        teleportTasks.whenComplete((v, throwable) -> Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), () -> {
+            // completed by the WorldUnloadEvent when successful
+            if(!Bukkit.unloadWorld(world, save)) {
+                STEMCraftLib.log(Level.WARNING, "Failed to unload world " + name);
+                unloadFinished(name, WorldStatus.UNLOAD_FAILED);
             } else {
-                if(statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.UNLOADING_WORLD);
+                unloadFinished(name, WorldStatus.UNLOADED_WORLD);
             }
+        }));
 
-            task.runTaskTimer(STEMCraftLib.getInstance(), 10L, 10L);
-        } else {
-            if(statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.WORLD_NOT_LOADED);
+        return result;
+    }
+
+    /**
+     * Complete a pending unload once the server has unloaded the world
+     *
+     * @param world The unloaded world
+     */
+    public static void worldUnloaded(World world) {
+        RealmRegistry.remove(world);
+        unloadFinished(world.getName(), WorldStatus.UNLOADED_WORLD);
+    }
+
+    /**
+     * Complete a pending unload
+     *
+     * @param name The world name
+     * @param status The result of the unload
+     */
+    private static void unloadFinished(String name, WorldStatus status) {
+        CompletableFuture<WorldStatus> pending = pendingUnloads.remove(name);
+        unloadingList.remove(name);
+
+        if(pending != null) {
+            if(status == WorldStatus.UNLOADED_WORLD) {
+                STEMCraftLib.log("Unloaded world {name}", "name", name);
+            }
+
+            pending.complete(status);
         }
     }
 
@@ -409,15 +677,7 @@ public class SCWorld {
         if(world != null) {
             delete(world, statusCallback);
         } else {
-            File worldFolder = getWorldFolder(worldName);
-            if (worldFolder.exists()) {
-                deleteFolder(worldFolder);
-            }
-
-            STEMCraftLib.log("Deleted world {name}", "name", worldName);
-            Bukkit.getPluginManager().callEvent(new WorldDeleteEvent(worldName));
-
-            if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.DELETED_WORLD);
+            deleteWorldFolder(worldName, statusCallback);
         }
     }
 
@@ -433,23 +693,13 @@ public class SCWorld {
                 String name = world.getName();
 
                 config.set("worlds." + world.getName(), null);
+                markDirty(name);
 
                 unload(world, false, status -> {
                     if(statusCallback != null) statusCallback.onStatusUpdate(status);
 
                     if(status == WorldStatus.UNLOADED_WORLD) {
-                        Bukkit.getScheduler().runTaskLater(STEMCraftLib.getInstance(), () -> {
-                            if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.DELETING_WORLD);
-                            File worldFolder = getWorldFolder(name);
-                            if (worldFolder.exists()) {
-                                deleteFolder(worldFolder);
-                            }
-
-                            STEMCraftLib.log("Deleted world {name}", "name", name);
-                            Bukkit.getPluginManager().callEvent(new WorldDeleteEvent(name));
-
-                            if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.DELETED_WORLD);
-                        }, 20L);
+                        Bukkit.getScheduler().runTaskLater(STEMCraftLib.getInstance(), () -> deleteWorldFolder(name, statusCallback), 20L);
                     }
                 });
             } else {
@@ -468,9 +718,9 @@ public class SCWorld {
      * @return The last location or spawn
      */
     public static Location getLastLocation(World world, Player player) {
-        String lastLocation = config.getString("worlds." + world.getName() + ".players." + player.getUniqueId() + ".last-location");
+        LastLocationStore.LastLocation lastLocation = lastLocations == null ? null : lastLocations.get(player.getUniqueId(), world.getName());
         if(lastLocation != null) {
-            return SCString.stringToLocation(lastLocation, world);
+            return new Location(world, lastLocation.x(), lastLocation.y(), lastLocation.z(), lastLocation.yaw(), lastLocation.pitch());
         }
 
         return world.getSpawnLocation();
@@ -483,8 +733,32 @@ public class SCWorld {
      * @param location The last location to update
      */
     public static void updateLastLocation(Player player, Location location) {
-        String lastLocation = SCString.locationToString(location, false, true);
-        config.set("worlds." + location.getWorld().getName() + ".players." + player.getUniqueId() + ".last-location", lastLocation);
+        if (lastLocations != null) {
+            lastLocations.put(player.getUniqueId(), location.getWorld().getName(), location.getX(), location.getY(),
+                    location.getZ(), location.getYaw(), location.getPitch());
+        }
+    }
+
+    /**
+     * Read the last locations of a player that has joined the server into memory in the background.
+     *
+     * @param player The player joining
+     */
+    public static void playerJoin(Player player) {
+        if (lastLocations != null) {
+            lastLocations.preload(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Release the cached last locations of a player that has left the server.
+     *
+     * @param player The player leaving
+     */
+    public static void playerQuit(Player player) {
+        if (lastLocations != null) {
+            lastLocations.evict(player.getUniqueId());
+        }
     }
 
     /**
@@ -506,10 +780,7 @@ public class SCWorld {
                 if(world != null) {
                     delete(world);
                 } else {
-                    File worldFolder = getWorldFolder(worldName);
-                    if(worldFolder.exists()) {
-                        deleteFolder(worldFolder);
-                    }
+                    deleteWorldFolder(worldName, null);
                 }
             }
         }
@@ -520,21 +791,224 @@ public class SCWorld {
      *
      * @param sourceWorldName The source world name
      * @param targetWorldName The destination world name
+     * @return A future completing with the loaded duplicate world, or NULL if it could not be duplicated
+     */
+    public static CompletableFuture<World> duplicate(String sourceWorldName, String targetWorldName) {
+        return duplicate(sourceWorldName, targetWorldName, null, null);
+    }
+
+    /**
+     * Duplicate a world. The files are copied off the main thread and the new world is loaded once
+     * the copy is complete. Callbacks are called on the main thread.
+     *
+     * @param sourceWorldName The source world name
+     * @param targetWorldName The destination world name
+     * @param statusCallback Callback on status changes
+     * @param progressCallback Callback on copy progress, at most once per tick
+     * @return A future completing with the loaded duplicate world, or NULL if it could not be duplicated
      */
-    public static void duplicate(String sourceWorldName, String targetWorldName) {
+    public static CompletableFuture<World> duplicate(String sourceWorldName, String targetWorldName,
+                                                     WorldStatusCallback statusCallback, WorldProgressCallback progressCallback) {
+        CompletableFuture<World> result = new CompletableFuture<>();
+        if (!exists(sourceWorldName) || exists(targetWorldName) || copyingList.contains(targetWorldName)) {
+            result.complete(null);
+            return result;
+        }
+
+        // flush the source so the copy is consistent
         World sourceWorld = Bukkit.getWorld(sourceWorldName);
-        if (sourceWorld == null || exists(targetWorldName)) return;
+        if (sourceWorld != null) {
+            sourceWorld.save();
+        }
 
-        File sourceFolder = getWorldFolder(sourceWorldName);
-        File targetFolder = getWorldFolder(targetWorldName);
+        copyingList.add(targetWorldName);
+        if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.COPYING_WORLD);
+        STEMCraftLib.log("Copying world {source} to {target}", "source", sourceWorldName, "target", targetWorldName);
+
+        AtomicLong bytesDone = new AtomicLong();
+        AtomicLong bytesTotal = new AtomicLong();
+        AtomicBoolean progressScheduled = new AtomicBoolean(false);
+        WorldProgressCallback copyProgress = progressCallback == null ? null : (done, total) -> {
+            bytesDone.accumulateAndGet(done, Math::max);
+            bytesTotal.set(total);
+            if (progressScheduled.compareAndSet(false, true)) {
+                Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), () -> {
+                    progressScheduled.set(false);
+                    progressCallback.onProgress(bytesDone.get(), bytesTotal.get());
+                });
+            }
+        };
 
-        try {
-            copyFolder(sourceFolder, targetFolder);
-            WorldCreator creator = new WorldCreator(targetWorldName);
-            Bukkit.createWorld(creator);
-        } catch (IOException e) {
-            STEMCraftLib.log(Level.SEVERE, "Failed to duplicate world", e);
+        WorldCopier.copy(getWorldFolder(sourceWorldName).toPath(), getWorldFolder(targetWorldName).toPath(), copyProgress)
+                .whenComplete((bytes, throwable) -> Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), () -> {
+                    copyingList.remove(targetWorldName);
+
+                    if (throwable != null) {
+                        STEMCraftLib.log(Level.SEVERE, "Failed to duplicate world " + sourceWorldName, throwable);
+                        if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.COPY_FAILED);
+                        result.complete(null);
+                        return;
+                    }
+
+                    STEMCraftLib.log("Copied world {source} to {target}", "source", sourceWorldName, "target", targetWorldName);
+                    WorldRegistry.added(targetWorldName);
+                    String generator = generator(sourceWorldName);
+                    if (generator != null) {
+                        generator(targetWorldName, generator);
+                    }
+
+                    if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.COPIED_WORLD);
+
+                    WorldCreator creator = worldCreator(targetWorldName);
+                    result.complete(creator == null ? null : Bukkit.createWorld(creator));
+                }));
+
+        return result;
+    }
+
+    /**
+     * Delete the folder of an unloaded world in the background. The world is removed from the server
+     * and WorldDeleteEvent called once every file is deleted.
+     *
+     * @param name The world name
+     * @param statusCallback Callback on progress
+     */
+    private static void deleteWorldFolder(String name, WorldStatusCallback statusCallback) {
+        if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.DELETING_WORLD);
+
+        File worldFolder = getWorldFolder(name);
+        if (!worldFolder.exists()) {
+            worldRemoved(name);
+            STEMCraftLib.log("Deleted world {name}", "name", name);
+            Bukkit.getPluginManager().callEvent(new WorldDeleteEvent(name, 0));
+            if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.DELETED_WORLD);
+            return;
+        }
+
+        WorldDeleter.delete(worldFolder.toPath()).whenComplete((result, throwable) ->
+                Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), () -> {
+                    if (throwable != null || !result.deleted()) {
+                        if (throwable != null) {
+                            STEMCraftLib.log(Level.SEVERE, "Failed to delete world " + name, throwable);
+                        } else {
+                            WorldDeleter.report(worldFolder.toPath(), result);
+
+                            // moved to the trash, so the world is gone from the server even though files remain
+                            if (result.removed()) {
+                                worldRemoved(name);
+                            }
+                        }
+
+                        if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.DELETE_FAILED);
+                        return;
+                    }
+
+                    WorldDeleter.report(worldFolder.toPath(), result);
+                    worldRemoved(name);
+                    STEMCraftLib.log("Deleted world {name}", "name", name);
+                    Bukkit.getPluginManager().callEvent(new WorldDeleteEvent(name, result.bytesFreed()));
+
+                    if (statusCallback != null) statusCallback.onStatusUpdate(WorldStatus.DELETED_WORLD);
+                }));
+    }
+
+    /**
+     * Update the registries once a world folder has been removed
+     *
+     * @param name The world name
+     */
+    private static void worldRemoved(String name) {
+        WorldRegistry.removed(name);
+        IdleWorldMonitor.removed(name);
+        if (lastLocations != null) {
+            lastLocations.removeWorld(name);
+        }
+
+        config.set("worlds." + name, null);
+        markDirty(name);
+    }
+
+    /**
+     * Get/Set the minutes a world can be empty before it is parked (unloaded until next needed).
+     * @param name The world name
+     * @param minutes The minutes to set, 0 to never park the world or less than 0 to use the default
+     * @return The idle unload minutes
+     */
+    public static long idleUnload(String name, Long minutes) {
+        if(minutes != null) {
+            config.set("worlds." + name + ".idle-unload", minutes < 0 ? null : minutes);
+            markDirty(name);
+        }
+
+        long defaultMinutes = STEMCraftLib.getInstance().getConfig().getLong("world-idle.unload-after", 0);
+        return config.getLong("worlds." + name + ".idle-unload", defaultMinutes);
+    }
+
+    public static long idleUnload(String name) {
+        return idleUnload(name, null);
+    }
+
+    /**
+     * Get/Set the generator a world was created with, used whenever the world is loaded.
+     * @param name The world name
+     * @param generator The generator id to set, or an empty string for the server default
+     * @return The generator id, or NULL for the server default
+     */
+    public static String generator(String name, String generator) {
+        if(generator != null) {
+            config.set("worlds." + name + ".generator", generator.isEmpty() ? null : generator);
+            markDirty(name);
+        }
+
+        return config.getString("worlds." + name + ".generator");
+    }
+
+    public static String generator(String name) {
+        return generator(name, null);
+    }
+
+    /**
+     * Get/Set the realm of a world. Worlds in the same realm, such as a world and its nether, are
+     * treated as one place. By default the realm is the world name without a realm suffix.
+     * @param name The world name
+     * @param realm The realm to set, or an empty string to use the default
+     * @return The configured realm, or NULL if the default is used
+     */
+    public static String realm(String name, String realm) {
+        if(realm != null) {
+            config.set("worlds." + name + ".realm", realm.isEmpty() ? null : realm);
+            markDirty(name);
+
+            World world = Bukkit.getWorld(name);
+            if(world != null) {
+                RealmRegistry.add(world, realm);
+            }
         }
+
+        return config.getString("worlds." + name + ".realm");
+    }
+
+    public static String realm(String name) {
+        return realm(name, null);
+    }
+
+    /**
+     * Is the world parked, having been unloaded while idle. Parked worlds are loaded again by
+     * load, loadAsync or teleporting a player to the world.
+     * @param name The world name
+     * @return If the world is parked
+     */
+    public static boolean isParked(String name) {
+        return IdleWorldMonitor.isParked(name);
+    }
+
+    /**
+     * Update the world state once the server has loaded a world. Safe to call more than once for a world
+     * @param world The loaded world
+     */
+    public static void worldLoaded(World world) {
+        IdleWorldMonitor.loaded(world.getName());
+        RealmRegistry.add(world, config.getString("worlds." + world.getName() + ".realm"));
     }
 
     /**
@@ -546,7 +1020,7 @@ public class SCWorld {
     public static boolean bedRespawn(World world, Boolean value) {
         if(value != null) {
             config.set("worlds." + world.getName() + ".bedRespawn", value);
-            saveConfig();
+            markDirty(world.getName());
         }
 
         return config.getBoolean("worlds." + world.getName() + ".bedRespawn", true);
@@ -565,7 +1039,7 @@ public class SCWorld {
     public static GameMode gameMode(World world, GameMode value) {
         if(value != null) {
             config.set("worlds." + world.getName() + ".game-mode", value.toString());
-            saveConfig();
+            markDirty(world.getName());
         }
 
         String gameModeString = config.getString("worlds." + world.getName() + ".game-mode");
@@ -579,30 +1053,4 @@ public class SCWorld {
     public static GameMode gameMode(World world) {
         return gameMode(world, null);
     }
-
-    private static void deleteFolder(File folder) {
-        if (folder.isDirectory()) {
-            File[] files = folder.listFiles();
-            if (files != null) { // Check if the folder is not empty
-                for (File file : files) {
-                    deleteFolder(file); // Recursive call
-                }
-            }
-        }
-        //noinspection ResultOfMethodCallIgnored
-        folder.delete(); // Delete the folder or file
-    }
-
-    private static void copyFolder(File source, File target) throws IOException {
-        if (!target.exists()) //noinspection ResultOfMethodCallIgnored
-            target.mkdirs();
-        for (File file : Objects.requireNonNull(source.listFiles())) {
-            File targetFile = new File(target, file.getName());
-            if (file.isDirectory()) {
-                copyFolder(file, targetFile);
-            } else {
-                java.nio.file.Files.copy(file.toPath(), targetFile.toPath());
-            }
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.stemcraft.world;
+
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads (and generates if needed) the chunks around a point using the asynchronous chunk API, nearest
+ * first, with a limit on how many chunk requests are in flight at once. Each loaded chunk is given a
+ * plugin chunk ticket so it stays loaded, taking the place of the vanilla spawn chunks.
+ */
+public class ChunkPrewarmer {
+    private final World world;
+    private final ArrayDeque<long[]> pending = new ArrayDeque<>();
+    private final int maxInFlight;
+    private final CompletableFuture<Integer> result = new CompletableFuture<>();
+    private int inFlight = 0;
+    private int loaded = 0;
+
+    private ChunkPrewarmer(World world, int centerX, int centerZ, int radius, int maxInFlight) {
+        this.world = world;
+        this.maxInFlight = Math.max(1, maxInFlight);
+
+        List<long[]> chunks = new ArrayList<>();
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                chunks.add(new long[]{centerX + x, centerZ + z, (long) x * x + (long) z * z});
+            }
+        }
+
+        chunks.sort(Comparator.comparingLong(chunk -> chunk[2]));
+        pending.addAll(chunks);
+    }
+
+    /**
+     * Load the chunks within a square radius of a chunk. Must be called on the main thread.
+     *
+     * @param world The world
+     * @param centerX The center chunk X
+     * @param centerZ The center chunk Z
+     * @param radius The radius in chunks, or less than 0 for none
+     * @param maxInFlight The most chunk requests to have in flight at once
+     * @return A future completing with the number of chunks loaded and held once all requests have finished
+     */
+    public static CompletableFuture<Integer> prewarm(World world, int centerX, int centerZ, int radius, int maxInFlight) {
+        if (radius < 0) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        ChunkPrewarmer prewarmer = new ChunkPrewarmer(world, centerX, centerZ, radius, maxInFlight);
+        prewarmer.next();
+        return prewarmer.result;
+    }
+
+    /**
+     * Start chunk requests until the in flight limit is reached
+     */
+    private void next() {
+        while (inFlight < maxInFlight && !pending.isEmpty()) {
+            long[] chunk = pending.poll();
+            inFlight++;
+
+            world.getChunkAtAsync((int) chunk[0], (int) chunk[1]).whenComplete((loadedChunk, throwable) -> {
+                inFlight--;
+                if (loadedChunk != null) {
+                    // without a ticket the chunk could unload again on the next tick
+                    loadedChunk.addPluginChunkTicket(STEMCraftLib.getInstance());
+                    loaded++;
+                }
+
+                next();
+            });
+        }
+
+        if (inFlight == 0 && pending.isEmpty()) {
+            result.complete(loaded);
+        }
+    }
+}
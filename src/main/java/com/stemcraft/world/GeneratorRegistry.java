@@ -0,0 +1,150 @@
+package com.stemcraft.world;
+
+import com.stemcraft.exception.InvalidWorldGeneratorException;
+import org.bukkit.Bukkit;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Registry of the chunk generators available to create worlds with. Each plugin that provides a
+ * default world generator is registered under its name when it is enabled and removed when it is
+ * disabled, and plugins can register further generator ids of their own.
+ *
+ * <p>A generator is referenced by its id, optionally followed by /id to pass an id to the plugin,
+ * such as Terra/OVERWORLD.</p>
+ */
+public class GeneratorRegistry {
+    private static final Map<String, Generator> generators = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * A registered generator
+     *
+     * @param id The generator id
+     * @param plugin The name of the plugin providing the generator
+     * @param factory Creates the generator from the world name and the id passed to the generator
+     */
+    public record Generator(String id, String plugin, BiFunction<String, String, ChunkGenerator> factory) {}
+
+    /**
+     * Register the generators of the enabled plugins
+     */
+    public static void init() {
+        generators.clear();
+        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+            if (plugin.isEnabled()) {
+                pluginEnabled(plugin);
+            }
+        }
+    }
+
+    /**
+     * Register a generator id
+     *
+     * @param id The generator id
+     * @param plugin The plugin providing the generator
+     * @param factory Creates the generator from the world name and the id passed to the generator
+     */
+    public static void register(String id, Plugin plugin, BiFunction<String, String, ChunkGenerator> factory) {
+        generators.put(id, new Generator(id, plugin.getName(), factory));
+    }
+
+    /**
+     * Register the default world generator of a plugin, if it provides one
+     *
+     * @param plugin The enabled plugin
+     */
+    public static void pluginEnabled(Plugin plugin) {
+        if (providesGenerator(plugin)) {
+            register(plugin.getName(), plugin, plugin::getDefaultWorldGenerator);
+        }
+    }
+
+    /**
+     * Remove the generators of a plugin
+     *
+     * @param plugin The disabled plugin
+     */
+    public static void pluginDisabled(Plugin plugin) {
+        generators.values().removeIf(generator -> generator.plugin().equals(plugin.getName()));
+    }
+
+    /**
+     * Is a generator available
+     *
+     * @param name The generator id, optionally followed by /id
+     * @return If the generator is registered
+     */
+    public static boolean exists(String name) {
+        return generators.containsKey(baseId(name));
+    }
+
+    /**
+     * Return the registered generators
+     *
+     * @return The generators, sorted by id
+     */
+    public static List<Generator> list() {
+        return new ArrayList<>(generators.values());
+    }
+
+    /**
+     * Create a chunk generator for a world
+     *
+     * @param worldName The world name
+     * @param name The generator id, optionally followed by /id
+     * @return The chunk generator
+     * @throws InvalidWorldGeneratorException If the generator is not available
+     */
+    public static ChunkGenerator create(String worldName, String name) {
+        Generator generator = generators.get(baseId(name));
+        if (generator == null) {
+            throw new InvalidWorldGeneratorException("The world generator " + name + " is not installed");
+        }
+
+        int separator = name.indexOf('/');
+        String id = separator < 0 ? null : name.substring(separator + 1);
+
+        ChunkGenerator chunkGenerator;
+        try {
+            chunkGenerator = generator.factory().apply(worldName, id);
+        } catch (RuntimeException e) {
+            throw new InvalidWorldGeneratorException("The world generator " + name + " failed to create a generator for " + worldName, e);
+        }
+
+        if (chunkGenerator == null) {
+            throw new InvalidWorldGeneratorException("The world generator " + name + " did not provide a generator for " + worldName);
+        }
+
+        return chunkGenerator;
+    }
+
+    /**
+     * Return the generator id without any id passed to the generator
+     *
+     * @param name The generator id, optionally followed by /id
+     * @return The generator id
+     */
+    private static String baseId(String name) {
+        int separator = name.indexOf('/');
+        return separator < 0 ? name : name.substring(0, separator);
+    }
+
+    /**
+     * Does a plugin override the default world generator
+     *
+     * @param plugin The plugin
+     * @return If the plugin provides a generator
+     */
+    private static boolean providesGenerator(Plugin plugin) {
+        try {
+            return plugin.getClass().getMethod("getDefaultWorldGenerator", String.class, String.class)
+                    .getDeclaringClass() != JavaPlugin.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.stemcraft.world;
+
+import com.stemcraft.STEMCraftLib;
+import com.stemcraft.util.SCWorld;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+
+/**
+ * Unloads worlds registered in worlds.yml that have been empty for too long. Unloaded (parked) worlds are loaded again when
+ * they are next needed.
+ */
+public class IdleWorldMonitor {
+    // the average tick time covers the last 100 ticks, so it is sampled again after this
+    private static final long TICK_SAMPLE_DELAY = 100;
+
+    private static final Map<String, Long> emptySince = new HashMap<>();
+    private static final Set<String> parked = new HashSet<>();
+    private static BukkitTask checkTask = null;
+
+    @Getter
+    private static int parkCount = 0;
+    @Getter
+    private static int reloadCount = 0;
+    @Getter
+    private static long chunksFreed = 0;
+    @Getter
+    private static long entitiesFreed = 0;
+    @Getter
+    private static double tickTimeSaved = 0;
+
+    /**
+     * Start checking for idle worlds
+     */
+    public static void init() {
+        shutdown();
+
+        long interval = Math.max(1, STEMCraftLib.getInstance().getConfig().getLong("world-idle.check-interval", 30)) * 20;
+        checkTask = Bukkit.getScheduler().runTaskTimer(STEMCraftLib.getInstance(), IdleWorldMonitor::check, interval, interval);
+    }
+
+    /**
+     * Stop checking for idle worlds
+     */
+    public static void shutdown() {
+        if (checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+
+        emptySince.clear();
+    }
+
+    /**
+     * Is the world parked (unloaded while idle)
+     *
+     * @param name The world name
+     * @return If the world is parked
+     */
+    public static boolean isParked(String name) {
+        return parked.contains(name);
+    }
+
+    /**
+     * Return the parked worlds
+     *
+     * @return The parked world names
+     */
+    public static Collection<String> getParked() {
+        return new ArrayList<>(parked);
+    }
+
+    /**
+     * Record a world as loaded, ending its parking
+     *
+     * @param name The world name
+     */
+    public static void loaded(String name) {
+        if (parked.remove(name)) {
+            reloadCount++;
+        }
+    }
+
+    /**
+     * Record a world as removed from the server
+     *
+     * @param name The world name
+     */
+    public static void removed(String name) {
+        parked.remove(name);
+        emptySince.remove(name);
+    }
+
+    /**
+     * Check the occupancy of the loaded worlds and park those idle for too long
+     */
+    private static void check() {
+        long now = System.currentTimeMillis();
+        World mainWorld = Bukkit.getWorlds().getFirst();
+        Set<String> seen = new HashSet<>();
+
+        for (World world : Bukkit.getWorlds()) {
+            String name = world.getName();
+            seen.add(name);
+
+            // worlds not in worlds.yml belong to the server or other plugins
+            if (!SCWorld.isManaged(name) || world == mainWorld || SCWorld.sameRealm(world, mainWorld) || SCWorld.isUnloading(name)) {
+                continue;
+            }
+
+            if (world.getPlayerCount() > 0) {
+                emptySince.remove(name);
+                continue;
+            }
+
+            long idleMinutes = SCWorld.idleUnload(name);
+            if (idleMinutes <= 0) {
+                emptySince.remove(name);
+                continue;
+            }
+
+            long since = emptySince.computeIfAbsent(name, k -> now);
+            if (now - since >= idleMinutes * 60_000L) {
+                park(world);
+            }
+        }
+
+        emptySince.keySet().retainAll(seen);
+    }
+
+    /**
+     * Unload an idle world
+     *
+     * @param world The world
+     */
+    private static void park(World world) {
+        String name = world.getName();
+        int chunks = world.getLoadedChunks().length;
+        int entities = world.getEntityCount();
+        double tickTime = Bukkit.getAverageTickTime();
+
+        emptySince.remove(name);
+        SCWorld.unload(world, true).thenAccept(status -> {
+            if (status != SCWorld.WorldStatus.UNLOADED_WORLD) {
+                return;
+            }
+
+            parked.add(name);
+            parkCount++;
+            chunksFreed += chunks;
+            entitiesFreed += entities;
+            STEMCraftLib.log("Parked idle world {name}, freeing {chunks} chunks and {entities} entities",
+                    "name", name, "chunks", String.valueOf(chunks), "entities", String.valueOf(entities));
+
+            Bukkit.getScheduler().runTaskLater(STEMCraftLib.getInstance(),
+                    () -> tickTimeSaved += Math.max(0, tickTime - Bukkit.getAverageTickTime()), TICK_SAMPLE_DELAY);
+        });
+    }
+}
@@ -0,0 +1,392 @@
+package com.stemcraft.world;
+
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Stores the last location of each player in each world as fixed size binary records, so a record
+ * can be rewritten in place. The locations of online players are read into memory in the background
+ * when they join, and changes are written in batches on a background thread.
+ */
+public class LastLocationStore {
+    // player UUID, world id, x, y, z, yaw and pitch
+    public static final int RECORD_SIZE = 16 + 4 + 3 * 8 + 2 * 4;
+    private static final int FREE = -1;
+
+    private final Path recordFile;
+    private final Path worldFile;
+    private final ExecutorService writer;
+
+    // only used on the main thread
+    private final Map<String, Integer> worldIds = new HashMap<>();
+    private final Map<UUID, Map<Integer, Integer>> slots = new HashMap<>();
+    private final Map<UUID, Map<Integer, LastLocation>> hot = new HashMap<>();
+    private final Map<Integer, LastLocation> dirty = new LinkedHashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private final Set<UUID> evicting = new HashSet<>();
+    private int nextSlot = 0;
+
+    // records handed to the writer thread and not yet written, by slot
+    private final Map<Integer, LastLocation> writing = new ConcurrentHashMap<>();
+
+    // written on the writer thread, positional reads are also made from the main thread
+    private volatile FileChannel records = null;
+
+    /**
+     * A stored location
+     */
+    public record LastLocation(UUID player, int world, double x, double y, double z, float yaw, float pitch) {}
+
+    public LastLocationStore(File dataFolder) {
+        this.recordFile = new File(dataFolder, "last-locations.dat").toPath();
+        this.worldFile = new File(dataFolder, "last-locations.worlds").toPath();
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "STEMCraftLib Location Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Read the world ids and build the index of the stored records
+     */
+    public void load() {
+        try {
+            if (Files.exists(worldFile)) {
+                List<String> names = Files.readAllLines(worldFile, StandardCharsets.UTF_8);
+                for (int i = 0; i < names.size(); i++) {
+                    worldIds.put(names.get(i), i);
+                }
+            }
+
+            records = FileChannel.open(recordFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long count = records.size() / RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            long position = 0;
+            int slot = 0;
+
+            while (slot < count) {
+                buffer.clear();
+                int read = records.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE && slot < count) {
+                    LastLocation location = readRecord(buffer);
+                    if (location.world() == FREE) {
+                        freeSlots.add(slot);
+                    } else {
+                        slots.computeIfAbsent(location.player(), k -> new HashMap<>()).put(location.world(), slot);
+                    }
+
+                    slot++;
+                }
+
+                position = (long) slot * RECORD_SIZE;
+            }
+
+            nextSlot = slot;
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.SEVERE, "Could not load the player last locations", e);
+        }
+    }
+
+    /**
+     * Return the last location of a player in a world
+     *
+     * @param player The player UUID
+     * @param worldName The world name
+     * @return The location, or NULL if none is stored
+     */
+    public LastLocation get(UUID player, String worldName) {
+        Integer world = worldIds.get(worldName);
+        if (world == null) {
+            return null;
+        }
+
+        Map<Integer, LastLocation> locations = hot.get(player);
+        if (locations != null && locations.containsKey(world)) {
+            return locations.get(world);
+        }
+
+        // not yet preloaded, a single record is read directly rather than waiting on the writer
+        Integer slot = slotOf(player, world);
+        LastLocation location = slot == null ? null : read(slot);
+        hot.computeIfAbsent(player, k -> new HashMap<>()).put(world, location);
+        return location;
+    }
+
+    /**
+     * Read the stored locations of a player into memory in the background, such as when they join
+     *
+     * @param player The player UUID
+     */
+    public void preload(UUID player) {
+        evicting.remove(player);
+
+        Map<Integer, Integer> playerSlots = slots.get(player);
+        if (playerSlots == null || playerSlots.isEmpty()) {
+            return;
+        }
+
+        // queued behind any pending writes, so the records read are current
+        Map<Integer, Integer> snapshot = new HashMap<>(playerSlots);
+        writer.execute(() -> {
+            Map<Integer, LastLocation> locations = new HashMap<>();
+            snapshot.forEach((world, slot) -> locations.put(world, read(slot)));
+
+            Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), () -> {
+                if (Bukkit.getPlayer(player) == null) {
+                    return;
+                }
+
+                // skip records changed or removed while they were being read
+                Map<Integer, LastLocation> cached = hot.computeIfAbsent(player, k -> new HashMap<>());
+                locations.forEach((world, location) -> {
+                    if (Objects.equals(slotOf(player, world), snapshot.get(world))) {
+                        cached.putIfAbsent(world, location);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Update the last location of a player in a world
+     *
+     * @param player The player UUID
+     * @param worldName The world name
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @param yaw The yaw
+     * @param pitch The pitch
+     */
+    public void put(UUID player, String worldName, double x, double y, double z, float yaw, float pitch) {
+        int world = worldId(worldName);
+        LastLocation location = new LastLocation(player, world, x, y, z, yaw, pitch);
+        hot.computeIfAbsent(player, k -> new HashMap<>()).put(world, location);
+        evicting.remove(player);
+
+        Integer slot = slotOf(player, world);
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.poll();
+            slots.computeIfAbsent(player, k -> new HashMap<>()).put(world, slot);
+        }
+
+        dirty.put(slot, location);
+    }
+
+    /**
+     * Release the in-memory locations of a player once they have been written
+     *
+     * @param player The player UUID
+     */
+    public void evict(UUID player) {
+        evicting.add(player);
+    }
+
+    /**
+     * Remove the stored locations for a world
+     *
+     * @param worldName The world name
+     */
+    public void removeWorld(String worldName) {
+        Integer world = worldIds.get(worldName);
+        if (world == null) {
+            return;
+        }
+
+        for (Map.Entry<UUID, Map<Integer, Integer>> entry : slots.entrySet()) {
+            Integer slot = entry.getValue().remove(world);
+            if (slot != null) {
+                dirty.put(slot, new LastLocation(entry.getKey(), FREE, 0, 0, 0, 0, 0));
+                freeSlots.add(slot);
+            }
+        }
+
+        slots.values().removeIf(Map::isEmpty);
+        hot.values().forEach(locations -> locations.remove(world));
+    }
+
+    /**
+     * Write the changed records in the background and release evicted players
+     */
+    public void flush() {
+        if (!dirty.isEmpty()) {
+            Map<Integer, LastLocation> batch = new LinkedHashMap<>(dirty);
+            dirty.clear();
+            writing.putAll(batch);
+            writer.execute(() -> writeRecords(batch));
+        }
+
+        for (UUID player : evicting) {
+            hot.remove(player);
+        }
+
+        evicting.clear();
+    }
+
+    /**
+     * Write the changed records and close the file, waiting for the writes to complete
+     */
+    public void close() {
+        flush();
+        writer.execute(() -> {
+            try {
+                if (records != null) {
+                    records.force(false);
+                    records.close();
+                }
+            } catch (IOException e) {
+                STEMCraftLib.log(Level.SEVERE, "Failed to close the player last locations", e);
+            }
+        });
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                STEMCraftLib.log(Level.SEVERE, "Timed out waiting for player last locations to be saved");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Return the id of a world, adding it if it is new
+     *
+     * @param worldName The world name
+     * @return The world id
+     */
+    private int worldId(String worldName) {
+        Integer world = worldIds.get(worldName);
+        if (world == null) {
+            world = worldIds.size();
+            worldIds.put(worldName, world);
+            writer.execute(() -> {
+                try {
+                    Files.writeString(worldFile, worldName + "\n", StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    STEMCraftLib.log(Level.SEVERE, "Failed to save the player last location worlds", e);
+                }
+            });
+        }
+
+        return world;
+    }
+
+    /**
+     * Return the slot of a stored record
+     *
+     * @param player The player UUID
+     * @param world The world id
+     * @return The slot, or NULL if there is no record
+     */
+    private Integer slotOf(UUID player, int world) {
+        Map<Integer, Integer> playerSlots = slots.get(player);
+        return playerSlots == null ? null : playerSlots.get(world);
+    }
+
+    /**
+     * Read a record, using the record being written if there is one. Safe to call from any thread.
+     *
+     * @param slot The record slot
+     * @return The record, or NULL if it could not be read
+     */
+    private LastLocation read(int slot) {
+        LastLocation pending = writing.get(slot);
+        if (pending != null) {
+            return pending.world() == FREE ? null : pending;
+        }
+
+        FileChannel channel = records;
+        if (channel == null) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+            long position = (long) slot * RECORD_SIZE;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+
+            buffer.flip();
+            LastLocation location = readRecord(buffer);
+            return location.world() == FREE ? null : location;
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.WARNING, "Could not read a player last location", e);
+            return null;
+        }
+    }
+
+    /**
+     * Write a batch of records in place
+     *
+     * @param batch The records by slot
+     */
+    private void writeRecords(Map<Integer, LastLocation> batch) {
+        if (records == null) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            for (Map.Entry<Integer, LastLocation> entry : batch.entrySet()) {
+                LastLocation location = entry.getValue();
+                buffer.clear();
+                buffer.putLong(location.player().getMostSignificantBits());
+                buffer.putLong(location.player().getLeastSignificantBits());
+                buffer.putInt(location.world());
+                buffer.putDouble(location.x());
+                buffer.putDouble(location.y());
+                buffer.putDouble(location.z());
+                buffer.putFloat(location.yaw());
+                buffer.putFloat(location.pitch());
+                buffer.flip();
+
+                long position = (long) entry.getKey() * RECORD_SIZE;
+                while (buffer.hasRemaining()) {
+                    position += records.write(buffer, position);
+                }
+
+                writing.remove(entry.getKey(), location);
+            }
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.SEVERE, "Failed to save player last locations", e);
+        }
+    }
+
+    /**
+     * Read a record from a buffer
+     *
+     * @param buffer The buffer
+     * @return The record
+     */
+    private static LastLocation readRecord(ByteBuffer buffer) {
+        UUID player = new UUID(buffer.getLong(), buffer.getLong());
+        return new LastLocation(player, buffer.getInt(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getFloat(), buffer.getFloat());
+    }
+}
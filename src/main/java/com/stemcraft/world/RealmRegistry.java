@@ -0,0 +1,127 @@
+package com.stemcraft.world;
+
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.World;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns each loaded world an integer realm id, so worlds can be compared by realm without any string
+ * handling. A world's realm is its configured realm name, or otherwise its name without any of the
+ * configured suffixes (such as _nether and _the_end). Safe to read from any thread.
+ */
+public class RealmRegistry {
+    public static final int NO_REALM = -1;
+
+    private static final Map<String, Integer> realmIds = new ConcurrentHashMap<>();
+    private static final Map<UUID, Integer> worldRealms = new ConcurrentHashMap<>();
+    private static final Map<Integer, Set<World>> realmWorlds = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+    private static List<String> suffixes = List.of("_nether", "_the_end");
+
+    /**
+     * Load the realm suffixes and clear the assigned worlds
+     */
+    public static void init() {
+        List<String> configured = STEMCraftLib.getInstance().getConfig().getStringList("realms.suffixes");
+        suffixes = configured.isEmpty() ? List.of("_nether", "_the_end")
+                : configured.stream().map(String::toLowerCase).toList();
+
+        worldRealms.clear();
+        realmWorlds.clear();
+    }
+
+    /**
+     * Assign a world to a realm, moving it from any realm it was in
+     *
+     * @param world The world
+     * @param realm The realm name, or NULL to use the realm from the world name
+     * @return The realm id
+     */
+    public static int add(World world, String realm) {
+        remove(world);
+
+        String realmName = realm == null || realm.isEmpty() ? realmName(world.getName()) : realm.toLowerCase();
+        int id = realmIds.computeIfAbsent(realmName, k -> nextId.getAndIncrement());
+        realmWorlds.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(world);
+        worldRealms.put(world.getUID(), id);
+        return id;
+    }
+
+    /**
+     * Remove a world from its realm
+     *
+     * @param world The world
+     */
+    public static void remove(World world) {
+        Integer id = worldRealms.remove(world.getUID());
+        if (id != null) {
+            Set<World> worlds = realmWorlds.get(id);
+            if (worlds != null) {
+                worlds.remove(world);
+            }
+        }
+    }
+
+    /**
+     * Return the realm id of a world, assigning it from the world name if it has not been assigned
+     *
+     * @param world The world
+     * @return The realm id
+     */
+    public static int getRealm(World world) {
+        Integer id = worldRealms.get(world.getUID());
+        return id != null ? id : add(world, null);
+    }
+
+    /**
+     * Return the id of a realm name
+     *
+     * @param realm The realm name
+     * @return The realm id, or NO_REALM if no world has been in the realm
+     */
+    public static int getRealm(String realm) {
+        return realmIds.getOrDefault(realm.toLowerCase(), NO_REALM);
+    }
+
+    /**
+     * Return the loaded worlds in a realm
+     *
+     * @param realm The realm id
+     * @return The worlds in the realm
+     */
+    public static Collection<World> getWorlds(int realm) {
+        Set<World> worlds = realmWorlds.get(realm);
+        return worlds == null ? Collections.emptySet() : Collections.unmodifiableSet(worlds);
+    }
+
+    /**
+     * Are worlds part of the same realm
+     *
+     * @param worldA World A to test
+     * @param worldB World B to test
+     * @return If both worlds are in the same realm
+     */
+    public static boolean sameRealm(World worldA, World worldB) {
+        return worldA == worldB || getRealm(worldA) == getRealm(worldB);
+    }
+
+    /**
+     * Return the realm name from a world name
+     *
+     * @param worldName The world name
+     * @return The realm name
+     */
+    private static String realmName(String worldName) {
+        String name = worldName.toLowerCase();
+        for (String suffix : suffixes) {
+            if (name.endsWith(suffix) && name.length() > suffix.length()) {
+                return name.substring(0, name.length() - suffix.length());
+            }
+        }
+
+        return name;
+    }
+}
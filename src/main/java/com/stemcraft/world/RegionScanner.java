@@ -0,0 +1,276 @@
+package com.stemcraft.world;
+
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scans the region files of a world without loading it. Each region file is memory mapped and its
+ * chunk table and chunk headers read on a pool of background threads, giving the chunk counts, sizes
+ * and compression types, and any chunks whose location in the file is invalid.
+ */
+public class RegionScanner {
+    private static final String[] DIMENSIONS = {"region", "DIM-1" + File.separator + "region", "DIM1" + File.separator + "region"};
+    private static final int SECTOR_SIZE = 4096;
+    private static final int HEADER_SIZE = SECTOR_SIZE * 2;
+    private static final int EXTERNAL_FLAG = 128;
+    private static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static ExecutorService pool = null;
+
+    /**
+     * A chunk or region file that could not be read
+     *
+     * @param file The region file
+     * @param chunkX The chunk X, or 0 if the whole file is bad
+     * @param chunkZ The chunk Z, or 0 if the whole file is bad
+     * @param reason Why the chunk is bad
+     */
+    public record Problem(Path file, int chunkX, int chunkZ, String reason) {}
+
+    /**
+     * The result of scanning the region files of a world
+     *
+     * @param regionFiles The number of region files
+     * @param regionBytes The size of the region files
+     * @param chunks The number of chunks stored
+     * @param chunkBytes The size of the stored chunk data
+     * @param compression The number of chunks using each compression type
+     * @param problems The bad chunks and region files
+     * @param elapsedMillis How long the scan took
+     */
+    public record ScanResult(int regionFiles, long regionBytes, int chunks, long chunkBytes,
+                             Map<String, Integer> compression, List<Problem> problems, long elapsedMillis) {}
+
+    /**
+     * The result of scanning one region file
+     */
+    private static class FileResult {
+        private long bytes = 0;
+        private int chunks = 0;
+        private long chunkBytes = 0;
+        private final Map<String, Integer> compression = new TreeMap<>();
+        private final List<Problem> problems = new ArrayList<>();
+    }
+
+    /**
+     * Scan the region files of a world folder in the background
+     *
+     * @param worldName The world name
+     * @return A future completing with the scan result
+     */
+    public static CompletableFuture<ScanResult> scan(String worldName) {
+        long start = System.nanoTime();
+        Path worldFolder = Bukkit.getWorldContainer().toPath().resolve(worldName);
+        ExecutorService executor = getPool();
+
+        return CompletableFuture.supplyAsync(() -> listRegionFiles(worldFolder), executor).thenCompose(files -> {
+            List<CompletableFuture<FileResult>> scans = new ArrayList<>();
+            for (Path file : files) {
+                scans.add(CompletableFuture.supplyAsync(() -> scanFile(file), executor));
+            }
+
+            return CompletableFuture.allOf(scans.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                long regionBytes = 0;
+                int chunks = 0;
+                long chunkBytes = 0;
+                Map<String, Integer> compression = new TreeMap<>();
+                List<Problem> problems = new ArrayList<>();
+
+                for (CompletableFuture<FileResult> scan : scans) {
+                    FileResult result = scan.join();
+                    regionBytes += result.bytes;
+                    chunks += result.chunks;
+                    chunkBytes += result.chunkBytes;
+                    result.compression.forEach((type, count) -> compression.merge(type, count, Integer::sum));
+                    problems.addAll(result.problems);
+                }
+
+                return new ScanResult(files.size(), regionBytes, chunks, chunkBytes, compression, problems,
+                        (System.nanoTime() - start) / 1_000_000);
+            });
+        });
+    }
+
+    /**
+     * Stop the scan threads
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    /**
+     * Return the scan thread pool, starting it if needed
+     *
+     * @return The executor
+     */
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "STEMCraftLib Region Scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return pool;
+    }
+
+    /**
+     * List the region files of each dimension of a world
+     *
+     * @param worldFolder The world folder
+     * @return The region files
+     */
+    private static List<Path> listRegionFiles(Path worldFolder) {
+        List<Path> files = new ArrayList<>();
+        for (String dimension : DIMENSIONS) {
+            Path regionFolder = worldFolder.resolve(dimension);
+            if (!Files.isDirectory(regionFolder)) {
+                continue;
+            }
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(regionFolder, "*.mca")) {
+                for (Path entry : entries) {
+                    files.add(entry);
+                }
+            } catch (IOException e) {
+                // an unreadable folder has no region files to scan
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Scan the chunk table and chunk headers of a region file
+     *
+     * @param file The region file
+     * @return The file result
+     */
+    private static FileResult scanFile(Path file) {
+        FileResult result = new FileResult();
+        int[] region = parseRegion(file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            result.bytes = size;
+            if (size == 0) {
+                return result;
+            }
+
+            if (size < HEADER_SIZE) {
+                result.problems.add(new Problem(file, 0, 0, "region file is truncated"));
+                return result;
+            }
+
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long sectors = (size + SECTOR_SIZE - 1) / SECTOR_SIZE;
+            BitSet used = new BitSet();
+
+            for (int i = 0; i < 1024; i++) {
+                int location = data.getInt(i * 4);
+                if (location == 0) {
+                    continue;
+                }
+
+                int chunkX = region[0] * 32 + (i & 31);
+                int chunkZ = region[1] * 32 + (i >> 5);
+                int offset = location >>> 8;
+                int count = location & 0xFF;
+
+                if (offset < 2 || count == 0 || offset + count > sectors) {
+                    result.problems.add(new Problem(file, chunkX, chunkZ, "chunk location is outside the file"));
+                    continue;
+                }
+
+                int overlap = used.nextSetBit(offset);
+                if (overlap >= 0 && overlap < offset + count) {
+                    result.problems.add(new Problem(file, chunkX, chunkZ, "chunk overlaps another chunk"));
+                    continue;
+                }
+
+                used.set(offset, offset + count);
+
+                long position = (long) offset * SECTOR_SIZE;
+                if (position + 5 > size) {
+                    result.problems.add(new Problem(file, chunkX, chunkZ, "chunk header is outside the file"));
+                    continue;
+                }
+
+                int length = data.getInt((int) position);
+                int type = data.get((int) position + 4) & 0xFF;
+                boolean external = (type & EXTERNAL_FLAG) != 0;
+
+                if (length <= 0 || (!external && length + 4L > (long) count * SECTOR_SIZE)) {
+                    result.problems.add(new Problem(file, chunkX, chunkZ, "chunk length " + length + " does not fit its sectors"));
+                    continue;
+                }
+
+                String compression = compressionName(type & ~EXTERNAL_FLAG);
+                if (compression == null) {
+                    result.problems.add(new Problem(file, chunkX, chunkZ, "unknown compression type " + type));
+                    continue;
+                }
+
+                result.chunks++;
+                result.chunkBytes += external ? 0 : length;
+                result.compression.merge(external ? compression + " (external)" : compression, 1, Integer::sum);
+            }
+        } catch (IOException | InternalError e) {
+            // an internal error is raised if the file is truncated while it is mapped
+            result.problems.add(new Problem(file, 0, 0, "region file could not be read: " + e.getMessage()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the name of a chunk compression type
+     *
+     * @param type The compression type
+     * @return The name, or NULL if the type is unknown
+     */
+    private static String compressionName(int type) {
+        return switch (type) {
+            case 1 -> "gzip";
+            case 2 -> "zlib";
+            case 3 -> "none";
+            case 4 -> "lz4";
+            case 127 -> "custom";
+            default -> null;
+        };
+    }
+
+    /**
+     * Return the region X and Z from a region file name, such as r.1.-2.mca
+     *
+     * @param file The region file
+     * @return The region X and Z, or 0 if the name cannot be parsed
+     */
+    private static int[] parseRegion(Path file) {
+        String[] parts = file.getFileName().toString().split("\\.");
+        if (parts.length == 4) {
+            try {
+                return new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+
+        return new int[]{0, 0};
+    }
+}
@@ -0,0 +1,191 @@
+package com.stemcraft.world;
+
+import com.stemcraft.STEMCraftLib;
+import com.stemcraft.util.SCFile;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+
+/**
+ * Writes the worlds configuration file in the background. Changed world sections are marked dirty and
+ * written together after a short delay. Only the dirty sections are serialized again, and the file is
+ * replaced atomically so it is never left partially written.
+ */
+public class WorldConfigWriter {
+    private final Path file;
+    private final YamlConfiguration config;
+    private final long delay;
+    private final ExecutorService writer;
+
+    // only used on the main thread
+    private final Map<String, String> sectionText = new LinkedHashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+    private boolean allDirty = true;
+    private BukkitTask flushTask = null;
+
+    /**
+     * Create a writer for a worlds configuration
+     *
+     * @param file The file to write
+     * @param config The configuration, with each world in a section under "worlds"
+     * @param delay The ticks to wait for further changes before writing
+     */
+    public WorldConfigWriter(Path file, YamlConfiguration config, long delay) {
+        this.file = file;
+        this.config = config;
+        this.delay = Math.max(1, delay);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "STEMCraftLib Worlds Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Mark the section of a world as changed and schedule a write
+     *
+     * @param worldName The world name
+     */
+    public void markDirty(String worldName) {
+        dirty.add(worldName);
+        schedule();
+    }
+
+    /**
+     * Mark every section as changed and schedule a write
+     */
+    public void markAllDirty() {
+        allDirty = true;
+        schedule();
+    }
+
+    /**
+     * Write any changes now, waiting for the write to complete
+     */
+    public void flush() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        byte[] data = render();
+        try {
+            writer.submit(() -> write(data)).get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            STEMCraftLib.log(Level.SEVERE, "Failed to save world configuration files", e);
+        } catch (TimeoutException e) {
+            STEMCraftLib.log(Level.SEVERE, "Timed out waiting for world configuration files to be saved");
+        }
+    }
+
+    /**
+     * Write any changes and stop the writer thread
+     */
+    public void close() {
+        flush();
+        writer.shutdown();
+    }
+
+    /**
+     * Schedule a write if one is not already scheduled
+     */
+    private void schedule() {
+        if (flushTask == null) {
+            flushTask = Bukkit.getScheduler().runTaskLater(STEMCraftLib.getInstance(), () -> {
+                flushTask = null;
+                byte[] data = render();
+                writer.execute(() -> write(data));
+            }, delay);
+        }
+    }
+
+    /**
+     * Serialize the configuration, reusing the text of the sections that have not changed
+     *
+     * @return The file contents
+     */
+    private byte[] render() {
+        ConfigurationSection worlds = config.getConfigurationSection("worlds");
+
+        if (allDirty) {
+            sectionText.clear();
+            dirty.clear();
+            if (worlds != null) {
+                dirty.addAll(worlds.getKeys(false));
+            }
+
+            allDirty = false;
+        }
+
+        for (String worldName : dirty) {
+            ConfigurationSection section = worlds == null ? null : worlds.getConfigurationSection(worldName);
+            if (section == null) {
+                sectionText.remove(worldName);
+                continue;
+            }
+
+            YamlConfiguration single = new YamlConfiguration();
+            single.set(worldName, section);
+            sectionText.put(worldName, indent(single.saveToString()));
+        }
+
+        dirty.clear();
+
+        if (sectionText.isEmpty()) {
+            return new byte[0];
+        }
+
+        StringBuilder text = new StringBuilder("worlds:\n");
+        sectionText.values().forEach(text::append);
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indent serialized text one level
+     *
+     * @param text The text
+     * @return The indented text
+     */
+    private static String indent(String text) {
+        StringBuilder indented = new StringBuilder(text.length() + 64);
+        for (String line : text.split("\n")) {
+            if (!line.isEmpty()) {
+                indented.append("  ").append(line);
+            }
+
+            indented.append('\n');
+        }
+
+        return indented.toString();
+    }
+
+    /**
+     * Write the file contents on the writer thread
+     *
+     * @param data The file contents
+     */
+    private void write(byte[] data) {
+        try {
+            SCFile.writeAtomically(file, data);
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.SEVERE, "Failed to save world configuration files", e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.stemcraft.world;
+
+import com.stemcraft.util.SCWorld;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Copies world folders off the main thread. Files are copied in parallel on a bounded pool using
+ * {@link FileChannel#transferTo}, which lets the operating system copy the data without passing it
+ * through the JVM (and clone it on filesystems that support it).
+ */
+public class WorldCopier {
+    // files that belong to the running server rather than the world
+    private static final Set<String> SKIP_FILES = Set.of("session.lock", "uid.dat");
+    private static final long TRANSFER_SIZE = 8L * 1024 * 1024;
+    private static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static ExecutorService pool = null;
+
+    /**
+     * A file to copy and its size
+     */
+    private record CopyFile(Path source, Path target, long size) {}
+
+    /**
+     * Copy a world folder to a new location. The target folder must not exist, and is removed again
+     * if the copy fails.
+     *
+     * @param source The world folder to copy
+     * @param target The new world folder
+     * @param progressCallback Called from the copy threads as data is copied, or null
+     * @return A future completing with the number of bytes copied
+     */
+    public static synchronized CompletableFuture<Long> copy(Path source, Path target, SCWorld.WorldProgressCallback progressCallback) {
+        if (Files.exists(target)) {
+            return CompletableFuture.failedFuture(new IOException("The target folder " + target + " already exists"));
+        }
+
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "STEMCraftLib World Copy");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        ExecutorService executor = pool;
+        AtomicLong copied = new AtomicLong();
+
+        return CompletableFuture.supplyAsync(() -> walk(source, target), executor)
+                .thenCompose(files -> {
+                    long total = files.stream().mapToLong(CopyFile::size).sum();
+                    CompletableFuture<?>[] copies = files.stream()
+                            .sorted(Comparator.comparingLong(CopyFile::size).reversed())
+                            .map(file -> CompletableFuture.runAsync(() -> {
+                                try {
+                                    copyFile(file, copied, total, progressCallback);
+                                } catch (IOException e) {
+                                    throw new CompletionException(e);
+                                }
+                            }, executor))
+                            .toArray(CompletableFuture[]::new);
+
+                    return CompletableFuture.allOf(copies).thenApply(v -> copied.get());
+                })
+                .whenComplete((bytes, throwable) -> {
+                    if (throwable != null) {
+                        deleteQuietly(target);
+                    }
+                });
+    }
+
+    /**
+     * Stop the copy threads, abandoning any copies in progress
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    /**
+     * Create the target folders and list the files to copy
+     *
+     * @param source The world folder to copy
+     * @param target The new world folder
+     * @return The files to copy
+     */
+    private static List<CopyFile> walk(Path source, Path target) {
+        List<CopyFile> files = new ArrayList<>();
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Files.createDirectories(target.resolve(source.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String name = file.getFileName().toString();
+                    if (attrs.isRegularFile() && !SKIP_FILES.contains(name)) {
+                        files.add(new CopyFile(file, target.resolve(source.relativize(file)), attrs.size()));
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+
+        return files;
+    }
+
+    /**
+     * Copy a single file
+     *
+     * @param file The file to copy
+     * @param copied The running total of bytes copied
+     * @param total The total bytes to copy
+     * @param progressCallback The progress callback, or null
+     * @throws IOException If the file could not be copied
+     */
+    private static void copyFile(CopyFile file, AtomicLong copied, long total, SCWorld.WorldProgressCallback progressCallback) throws IOException {
+        try (FileChannel in = FileChannel.open(file.source(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(file.target(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+
+            while (position < size) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("The copy of " + file.source() + " was interrupted");
+                }
+
+                long transferred = in.transferTo(position, Math.min(TRANSFER_SIZE, size - position), out);
+                if (transferred <= 0) {
+                    throw new IOException("The copy of " + file.source() + " stopped at " + position + " of " + size + " bytes");
+                }
+
+                position += transferred;
+                long bytes = copied.addAndGet(transferred);
+                if (progressCallback != null) {
+                    progressCallback.onProgress(bytes, total);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a partially copied folder
+     *
+     * @param folder The folder to remove
+     */
+    private static void deleteQuietly(Path folder) {
+        if (!Files.exists(folder)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignored) {
+                    // best effort
+                }
+            });
+        } catch (IOException ignored) {
+            // best effort
+        }
+    }
+}
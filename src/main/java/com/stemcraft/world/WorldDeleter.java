@@ -0,0 +1,224 @@
+package com.stemcraft.world;
+
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.Bukkit;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Deletes world folders off the main thread. The folder is first renamed into a trash folder in the
+ * world container, so it is gone from the server at once, and is then deleted in the background with
+ * an optional limit on the bytes deleted per second.
+ */
+public class WorldDeleter {
+    private static final String TRASH_FOLDER = ".trash";
+    private static long throttleBytes = 0;
+    private static ExecutorService executor = null;
+
+    /**
+     * The outcome of deleting a folder
+     *
+     * @param removed If the folder no longer exists in its original location
+     * @param trashed If anything not deleted is left in the trash folder
+     * @param bytesFreed The bytes of the files deleted
+     * @param filesDeleted The number of files deleted
+     * @param failures The paths that could not be deleted
+     */
+    public record DeleteResult(boolean removed, boolean trashed, long bytesFreed, int filesDeleted, List<Path> failures) {
+        /**
+         * Was everything deleted
+         *
+         * @return If the folder and all its contents were deleted
+         */
+        public boolean deleted() {
+            return failures.isEmpty();
+        }
+    }
+
+    /**
+     * Load the settings and delete anything left in the trash folder
+     */
+    public static void init() {
+        double throttle = STEMCraftLib.getInstance().getConfig().getDouble("world-delete.throttle-mb", 0);
+        throttleBytes = (long) (Math.max(0, throttle) * 1024 * 1024);
+
+        Path trash = Bukkit.getWorldContainer().toPath().resolve(TRASH_FOLDER);
+        if (Files.isDirectory(trash)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(trash)) {
+                for (Path entry : entries) {
+                    submit(entry, entry).thenAccept(result -> report(entry, result));
+                }
+            } catch (IOException e) {
+                STEMCraftLib.log(Level.WARNING, "Could not read the world trash folder", e);
+            }
+        }
+    }
+
+    /**
+     * Stop deleting, leaving anything not yet deleted in the trash folder for the next start
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Delete a folder. The folder is moved to the trash before being deleted in the background, or
+     * deleted where it is if it cannot be moved.
+     *
+     * @param folder The folder to delete
+     * @return A future completing with the result of the deletion
+     */
+    public static CompletableFuture<DeleteResult> delete(Path folder) {
+        Path target = folder;
+        try {
+            Path trash = folder.getParent().resolve(TRASH_FOLDER);
+            Files.createDirectories(trash);
+
+            Path trashed = trash.resolve(folder.getFileName() + "-" + System.currentTimeMillis());
+            Files.move(folder, trashed, StandardCopyOption.ATOMIC_MOVE);
+            target = trashed;
+        } catch (IOException | UnsupportedOperationException e) {
+            STEMCraftLib.log(Level.WARNING, "Could not move " + folder + " to the trash, deleting it in place", e);
+        }
+
+        return submit(folder, target);
+    }
+
+    /**
+     * Log the outcome of a deletion
+     *
+     * @param folder The folder deleted
+     * @param result The deletion result
+     */
+    public static void report(Path folder, DeleteResult result) {
+        if (result.deleted()) {
+            STEMCraftLib.log("Deleted {files} files ({mb} MB) from {folder}", "files", String.valueOf(result.filesDeleted()),
+                    "mb", String.format("%.1f", result.bytesFreed() / (1024.0 * 1024.0)), "folder", folder.toString());
+        } else {
+            STEMCraftLib.log(Level.WARNING, "Could not delete " + result.failures().size() + " paths from " + folder
+                    + ", including " + result.failures().getFirst()
+                    + (result.trashed() ? ". They are left in the trash folder and deleted again when the server starts" : ""));
+        }
+    }
+
+    /**
+     * Delete a folder on the background thread
+     *
+     * @param folder The original folder
+     * @param target The folder to delete
+     * @return A future completing with the result of the deletion
+     */
+    private static synchronized CompletableFuture<DeleteResult> submit(Path folder, Path target) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "STEMCraftLib World Delete");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return CompletableFuture.supplyAsync(() -> deleteTree(folder, target), executor);
+    }
+
+    /**
+     * Delete a folder and its contents, continuing past files that cannot be deleted
+     *
+     * @param folder The original folder
+     * @param target The folder to delete
+     * @return The result of the deletion
+     */
+    private static DeleteResult deleteTree(Path folder, Path target) {
+        List<Path> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        long[] bytesFreed = {0};
+        int[] filesDeleted = {0};
+
+        try {
+            Files.walkFileTree(target, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    try {
+                        Files.delete(file);
+                        bytesFreed[0] += attrs.size();
+                        filesDeleted[0]++;
+                    } catch (IOException e) {
+                        failures.add(file);
+                    }
+
+                    return throttle(start, bytesFreed[0]) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    failures.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    try {
+                        Files.delete(dir);
+                    } catch (IOException e) {
+                        failures.add(dir);
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            failures.add(target);
+        }
+
+        // deleting stops early if interrupted or shut down
+        if (failures.isEmpty() && Files.exists(target)) {
+            failures.add(target);
+        }
+
+        Path parent = target.getParent();
+        boolean trashed = parent != null && parent.getFileName() != null && parent.getFileName().toString().equals(TRASH_FOLDER);
+        return new DeleteResult(!Files.exists(folder), trashed, bytesFreed[0], filesDeleted[0], failures);
+    }
+
+    /**
+     * Wait until the bytes deleted are within the throttle limit
+     *
+     * @param start When deleting started
+     * @param bytesFreed The bytes deleted so far
+     * @return If deleting should continue
+     */
+    private static boolean throttle(long start, long bytesFreed) {
+        if (throttleBytes <= 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+
+        long due = start + (long) (bytesFreed * 1_000_000_000.0 / throttleBytes);
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
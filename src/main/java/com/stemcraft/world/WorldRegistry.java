@@ -0,0 +1,275 @@
+package com.stemcraft.world;
+
+import com.stemcraft.STEMCraftLib;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * In-memory registry of the worlds on the server. The world container is scanned once and then kept
+ * up to date by the world load, unload, create and delete paths, and by watching the world container
+ * for folders that are added or removed outside the server.
+ */
+public class WorldRegistry {
+    // folders that are not yet loadable are checked again for this long, as they may still be copying
+    private static final long PENDING_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+    private static final Set<String> worlds = ConcurrentHashMap.newKeySet();
+    private static final Set<String> loaded = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private static WatchService watchService = null;
+    private static Thread watchThread = null;
+
+    /**
+     * Scan the world container and start watching it for changes
+     */
+    public static void init() {
+        shutdown();
+        rescan();
+
+        try {
+            Path container = Bukkit.getWorldContainer().toPath();
+            watchService = FileSystems.getDefault().newWatchService();
+            container.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            WatchService service = watchService;
+            watchThread = new Thread(() -> watch(service), "STEMCraftLib World Watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException e) {
+            STEMCraftLib.log(Level.WARNING, "Could not watch the world container, worlds changed outside the server will not be listed", e);
+        }
+    }
+
+    /**
+     * Stop watching the world container
+     */
+    public static void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+
+            watchService = null;
+        }
+
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+
+        pending.clear();
+    }
+
+    /**
+     * Rebuild the registry from the world container and loaded worlds
+     */
+    public static void rescan() {
+        Set<String> found = new HashSet<>();
+        String[] names = Bukkit.getWorldContainer().list();
+        if (names != null) {
+            for (String name : names) {
+                if (isLoadableFolder(name)) {
+                    found.add(name);
+                }
+            }
+        }
+
+        loaded.clear();
+        for (World world : Bukkit.getWorlds()) {
+            loaded.add(world.getName());
+            found.add(world.getName());
+        }
+
+        worlds.retainAll(found);
+        worlds.addAll(found);
+    }
+
+    /**
+     * Return if a world exists on the server (including unloaded worlds)
+     *
+     * @param name The world name
+     * @return If the world exists
+     */
+    public static boolean exists(String name) {
+        return name != null && worlds.contains(name);
+    }
+
+    /**
+     * Return if a world is loaded
+     *
+     * @param name The world name
+     * @return If the world is loaded
+     */
+    public static boolean isLoaded(String name) {
+        return name != null && loaded.contains(name);
+    }
+
+    /**
+     * Return the names of the worlds on the server
+     *
+     * @return A list of world names
+     */
+    public static Collection<String> list() {
+        return new ArrayList<>(worlds);
+    }
+
+    /**
+     * Return the names of the worlds that are not loaded
+     *
+     * @return A list of world names
+     */
+    public static List<String> listUnloaded() {
+        List<String> list = new ArrayList<>();
+        for (String name : worlds) {
+            if (!loaded.contains(name)) {
+                list.add(name);
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Record a world as existing on disk
+     *
+     * @param name The world name
+     */
+    public static void added(String name) {
+        pending.remove(name);
+        worlds.add(name);
+    }
+
+    /**
+     * Record a world as removed from disk
+     *
+     * @param name The world name
+     */
+    public static void removed(String name) {
+        pending.remove(name);
+        loaded.remove(name);
+        worlds.remove(name);
+    }
+
+    /**
+     * Record a world as loaded
+     *
+     * @param name The world name
+     */
+    public static void loaded(String name) {
+        added(name);
+        loaded.add(name);
+    }
+
+    /**
+     * Record a world as unloaded. The world stays listed while its folder remains.
+     *
+     * @param name The world name
+     */
+    public static void unloaded(String name) {
+        loaded.remove(name);
+    }
+
+    /**
+     * Check if a world folder is loadable (valid)
+     *
+     * @param name The world name
+     * @return If the world is loadable
+     */
+    public static boolean isLoadableFolder(String name) {
+        File worldFolder = new File(Bukkit.getWorldContainer(), name);
+        if (!worldFolder.isDirectory()) {
+            return false;
+        }
+
+        if (new File(worldFolder, "level.dat").exists()) {
+            return true;
+        }
+
+        for (String dimension : new String[]{"region", "DIM-1" + File.separator + "region", "DIM1" + File.separator + "region"}) {
+            File regionFolder = new File(worldFolder, dimension);
+            if (regionFolder.isDirectory()) {
+                String[] files = regionFolder.list();
+                if (files != null) {
+                    for (String fileName : files) {
+                        if (fileName.toLowerCase(Locale.ENGLISH).endsWith(".mca")) {
+                            return true;
+                        }
+                    }
+                }
+
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Process changes to the world container until the watch service is closed
+     *
+     * @param service The watch service
+     */
+    private static void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.poll(1, TimeUnit.SECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            Bukkit.getScheduler().runTask(STEMCraftLib.getInstance(), WorldRegistry::rescan);
+                            continue;
+                        }
+
+                        String name = event.context().toString();
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                            if (!loaded.contains(name)) {
+                                pending.remove(name);
+                                worlds.remove(name);
+                            }
+                        } else if (!worlds.contains(name)) {
+                            pending.put(name, System.nanoTime());
+                        }
+                    }
+
+                    key.reset();
+                }
+
+                checkPending();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // stopped
+        }
+    }
+
+    /**
+     * Add folders that have become loadable since they were created
+     */
+    private static void checkPending() {
+        long now = System.nanoTime();
+        pending.entrySet().removeIf(entry -> {
+            if (isLoadableFolder(entry.getKey())) {
+                worlds.add(entry.getKey());
+                return true;
+            }
+
+            return now - entry.getValue() > PENDING_TIMEOUT;
+        });
+    }
+}